@@ -0,0 +1,56 @@
+package com.example.yada.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.config.StorageProperties;
+
+// A generated data directory shared by one benchmark trial: a catalog of the
+// given size, recipe chains of the given depth and fan-out, and years of logs
+final class BenchmarkData {
+    static final LocalDate START = LocalDate.of(2016, 1, 1);
+    static final int ENTRIES_PER_DAY = 6;
+
+    private BenchmarkData() {
+    }
+
+    static Path generate(int foods, int recipes, int depth, int fanOut, int years) {
+        try {
+            Path dir = Files.createTempDirectory("yada-jmh");
+            SyntheticData.writeBasicFoods(dir.resolve("basicFoods.json"), foods, 1);
+            SyntheticData.writeCompositeFoods(dir.resolve("compositeFoods.json"), recipes, depth, fanOut, foods, 2);
+            SyntheticData.writeDailyLogs(dir.resolve("dailyLogs.json"), START, years * 365,
+                ENTRIES_PER_DAY, foods, 3);
+            return dir;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Plain synchronous JSON storage with no background work, so trials don't interfere
+    static StorageProperties properties(Path dir) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.getUsers().setIdleEvictMs(0);
+        return properties;
+    }
+
+    // Last recipe of the last full chain, which sits depth levels deep
+    static String deepestRecipe(int recipes, int depth) {
+        return SyntheticData.compositeId(recipes / depth * depth - 1);
+    }
+
+    static void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.yada.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.yada.model.UserProfile;
+import com.example.yada.service.calorie.BatchCalorieEngine;
+import com.example.yada.service.calorie.CalorieCalculator;
+import com.example.yada.service.calorie.HarrisBenedictCalculator;
+import com.example.yada.service.calorie.MifflinStJeorCalculator;
+import com.example.yada.service.calorie.ProfileBatch;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalorieCalculatorBenchmark {
+    @Param({"sedentary", "active"})
+    String activityLevel;
+
+    private final CalorieCalculator harrisBenedict = new HarrisBenedictCalculator();
+    private final CalorieCalculator mifflinStJeor = new MifflinStJeorCalculator();
+    private final BatchCalorieEngine engine = new BatchCalorieEngine();
+    private final UserProfile[] profiles = new UserProfile[64];
+    private final double[] targets = new double[profiles.length];
+    private ProfileBatch batch;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < profiles.length; i++) {
+            UserProfile profile = new UserProfile();
+            profile.setGender(i % 2 == 0 ? "male" : "female");
+            profile.setHeight(150 + i);
+            profile.setWeight(50 + i * 1.5);
+            profile.setAge(18 + i);
+            profile.setActivityLevel(activityLevel);
+            profile.setCalorieMethod(i % 4 == 0 ? "MifflinStJeor" : "HarrisBenedict");
+            profiles[i] = profile;
+        }
+        batch = ProfileBatch.of(List.of(profiles));
+    }
+
+    @Benchmark
+    public double harrisBenedict() {
+        return harrisBenedict.calculate(profiles[next++ & (profiles.length - 1)]);
+    }
+
+    @Benchmark
+    public double mifflinStJeor() {
+        return mifflinStJeor.calculate(profiles[next++ & (profiles.length - 1)]);
+    }
+
+    // Per profile, so it compares directly with the two above
+    @Benchmark
+    @OperationsPerInvocation(64)
+    public double[] batchEngine() {
+        engine.calculate(batch, targets);
+        return targets;
+    }
+}
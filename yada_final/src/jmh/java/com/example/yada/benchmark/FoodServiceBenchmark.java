@@ -0,0 +1,95 @@
+package com.example.yada.benchmark;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.CalorieResolver;
+import com.example.yada.service.FoodService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodServiceBenchmark {
+    @Param({"10000", "100000"})
+    int foods;
+
+    @Param({"4", "16"})
+    int depth;
+
+    @Param({"4"})
+    int fanOut;
+
+    private Path dir;
+    private JsonDataStorage storage;
+    private FoodService foodService;
+    private String deepRecipe;
+    private CompositeFood deepComposite;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int recipes = Math.max(depth, foods / 100 / depth * depth);
+        dir = BenchmarkData.generate(foods, recipes, depth, fanOut, 1);
+        storage = new JsonDataStorage(BenchmarkData.properties(dir));
+        foodService = new FoodService(storage);
+        deepRecipe = BenchmarkData.deepestRecipe(recipes, depth);
+        deepComposite = foodService.findCompositeFoodById(deepRecipe).orElseThrow();
+
+        Random random = new Random(7);
+        ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SyntheticData.basicId(random.nextInt(foods));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public BasicFood findFoodById() {
+        return foodService.findFoodById(ids[next++ & (ids.length - 1)]).orElseThrow();
+    }
+
+    @Benchmark
+    public List<BasicFood> searchBasicFoods() {
+        return foodService.searchBasicFoods("spicy");
+    }
+
+    // Served from the per-serving cache after the first call
+    @Benchmark
+    public int calculateCaloriesDeepComposite() {
+        return foodService.calculateCalories(deepRecipe, 1.5);
+    }
+
+    // Flattens the whole chain every time, as after a catalog change
+    @Benchmark
+    public double calculateCaloriesDeepCompositeCold() {
+        return new CalorieResolver(storage.getFoodIndex()).perServingCalories(deepComposite);
+    }
+}
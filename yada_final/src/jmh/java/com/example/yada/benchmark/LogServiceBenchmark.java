@@ -0,0 +1,87 @@
+package com.example.yada.benchmark;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.FoodService;
+import com.example.yada.service.LogService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogServiceBenchmark {
+    private static final UserContext USER = UserContext.DEFAULT;
+
+    @Param({"1", "10"})
+    int years;
+
+    @Param({"10000"})
+    int foods;
+
+    private Path dir;
+    private LogService logService;
+    private int days;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchmarkData.generate(foods, foods / 100, 4, 4, years);
+        JsonDataStorage storage = new JsonDataStorage(BenchmarkData.properties(dir));
+        logService = new LogService(storage, new FoodService(storage));
+        days = years * 365;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    private LocalDate nextDay(int span) {
+        next = (next + 37) % (days - span);
+        return BenchmarkData.START.plusDays(next);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getWeeklyCalories() {
+        return logService.getWeeklyCalories(USER, nextDay(7));
+    }
+
+    @Benchmark
+    public NutrientTotals calculateNutrientsYear() {
+        LocalDate from = nextDay(365);
+        return logService.calculateNutrients(USER, from, from.plusDays(364));
+    }
+
+    @Benchmark
+    public Map<String, Double> getFoodFrequencyMonth() {
+        LocalDate from = nextDay(30);
+        return logService.getFoodFrequency(USER, from, from.plusDays(29));
+    }
+
+    @Benchmark
+    public Map<String, Double> getFoodFrequencyAllTime() {
+        return logService.getFoodFrequency(USER, BenchmarkData.START, BenchmarkData.START.plusDays(days - 1));
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.yada.benchmark;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.repository.LogMutation;
+
+// Whole-file loads and saves, so single-shot style: few, long iterations
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class StorageBenchmark {
+    @Param({"10000", "100000"})
+    int foods;
+
+    @Param({"1", "10"})
+    int years;
+
+    private Path dir;
+    private StorageProperties properties;
+    private JsonDataStorage storage;
+    private LocalDate day;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dir = BenchmarkData.generate(foods, foods / 100, 4, 4, years);
+        properties = BenchmarkData.properties(dir);
+        storage = new JsonDataStorage(properties);
+        day = BenchmarkData.START.plusDays(years * 365L / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public JsonDataStorage load() {
+        return new JsonDataStorage(properties);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void saveCatalog() {
+        storage.saveBasicFoods();
+        storage.saveCompositeFoods();
+    }
+
+    // Without the journal every change rewrites the daily logs; the pair keeps the size steady
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public void saveDailyLogs() {
+        LogMutation add = LogMutation.add(day, SyntheticData.basicId(0), 1);
+        storage.applyLogMutation(UserContext.DEFAULT, add);
+        storage.applyLogMutation(UserContext.DEFAULT, LogMutation.remove(day, add.getFoodId(), 1));
+    }
+}
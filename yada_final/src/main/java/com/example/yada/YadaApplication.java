@@ -5,11 +5,17 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Import;
 
 import com.example.yada.config.CalorieConfig;
+import com.example.yada.ui.HeadlessCli;
 @Import(CalorieConfig.class) 
 @SpringBootApplication
 public class YadaApplication {
 
 	public static void main(String[] args) {
+		// One-shot commands skip the Spring context entirely
+		if (args.length > 0 && args[0].equals("--headless")) {
+			HeadlessCli.main(args);
+			return;
+		}
 		SpringApplication.run(YadaApplication.class, args);
 	}
 
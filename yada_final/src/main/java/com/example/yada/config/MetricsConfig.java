@@ -0,0 +1,30 @@
+package com.example.yada.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.yada.metrics.YadaMetrics;
+import com.example.yada.repository.JsonDataStorage;
+
+@Configuration
+public class MetricsConfig {
+    // Timers also report to the ObservationRegistry and everything else to the
+    // MeterRegistry when those are defined, as Spring Boot Actuator does;
+    // otherwise metrics are only kept in process
+    @Bean
+    public YadaMetrics yadaMetrics(@Value("${yada.metrics.enabled:true}") boolean enabled,
+                                   ObjectProvider<ObservationRegistry> observations,
+                                   ObjectProvider<MeterRegistry> meters, JsonDataStorage storage) {
+        YadaMetrics metrics = new YadaMetrics(enabled, observations.getIfAvailable(() -> ObservationRegistry.NOOP),
+            meters.getIfAvailable());
+        storage.getMetrics().bind(metrics);
+        metrics.gauge("storage.users.active", storage::getActiveUserCount);
+        metrics.gauge("log.days", storage::getActiveLoggedDays);
+        metrics.gauge("undo.depth", storage::getActiveUndoDepth);
+        return metrics;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.yada.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StorageConfig {
+    @Bean
+    @ConfigurationProperties(prefix = "yada.storage")
+    public StorageProperties storageProperties() {
+        return new StorageProperties();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.yada.config;
+
+import lombok.Data;
+
+@Data
+public class StorageProperties {
+    private String dataDir = "src/main/resources/data/";
+    // json or binary
+    private String format = "json";
+    // heap (one daily log document) or mapped (monthly memory-mapped segments)
+    private String logStore = "heap";
+    private int maxMappedSegments = 12;
+    private WriteBehind writeBehind = new WriteBehind();
+    private Journal journal = new Journal();
+    private Users users = new Users();
+    private Undo undo = new Undo();
+    private Catalog catalog = new Catalog();
+
+    @Data
+    public static class WriteBehind {
+        private boolean enabled = false;
+        private long intervalMs = 1000;
+    }
+
+    @Data
+    public static class Journal {
+        private boolean enabled = false;
+        private int fsyncBatchSize = 16;
+        private long compactIntervalMs = 60000;
+    }
+
+    @Data
+    public static class Users {
+        // Most user shards kept in memory; the least recently used goes first
+        private int maxActive = 1000;
+        // Shards untouched for this long are saved and dropped; 0 disables
+        private long idleEvictMs = 600000;
+    }
+
+    @Data
+    public static class Undo {
+        // Undo/redo records kept per user, oldest actions dropped first
+        private int maxRecords = 10000;
+    }
+
+    @Data
+    public static class Catalog {
+        // Repeated food ids at load: keep-first, keep-last, merge (union of keywords) or reject
+        private String duplicates = "keep-first";
+        // Share id and keyword strings and identical keyword lists across the loaded catalog
+        private boolean canonicalize = true;
+    }
+}
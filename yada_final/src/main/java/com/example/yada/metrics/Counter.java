@@ -0,0 +1,28 @@
+package com.example.yada.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+    public static final Counter NOOP = new Counter() {
+        @Override
+        public void increment(long amount) {
+        }
+    };
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        increment(1);
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
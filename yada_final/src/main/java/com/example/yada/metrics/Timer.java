@@ -0,0 +1,72 @@
+package com.example.yada.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+// Latency histogram of one operation, in nanoseconds. Timed calls also run as
+// Micrometer observations when a real ObservationRegistry is present, which
+// Spring Boot Actuator turns into exported timers of the same name. Durations
+// measured elsewhere and handed to recordNanos have no observation, so they go
+// to the MeterRegistry directly.
+public class Timer {
+    public static final Timer NOOP = new Timer("noop", ObservationRegistry.NOOP, null) {
+        @Override
+        public <T> T record(Supplier<T> body) {
+            return body.get();
+        }
+
+        @Override
+        public void recordNanos(long nanos) {
+        }
+    };
+
+    private final String name;
+    private final ObservationRegistry observations;
+    private final MeterRegistry meters;
+    // Registered on first use, so observed timers don't get a second meter
+    private volatile io.micrometer.core.instrument.Timer exported;
+    private final Histogram nanos = new Histogram();
+
+    Timer(String name, ObservationRegistry observations, MeterRegistry meters) {
+        this.name = name;
+        this.observations = observations;
+        this.meters = meters;
+    }
+
+    public <T> T record(Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            if (observations.isNoop()) {
+                return body.get();
+            }
+            return Observation.createNotStarted(name, observations).observe(body);
+        } finally {
+            nanos.record(System.nanoTime() - start);
+        }
+    }
+
+    public void run(Runnable body) {
+        record(() -> {
+            body.run();
+            return null;
+        });
+    }
+
+    public void recordNanos(long elapsed) {
+        nanos.record(elapsed);
+        if (meters != null) {
+            if (exported == null) {
+                exported = io.micrometer.core.instrument.Timer.builder(name).register(meters);
+            }
+            exported.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public Histogram getHistogram() {
+        return nanos;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.yada.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+// Registry of the application's timers, histograms, counters and gauges, by
+// dotted name. When disabled every instrument handed out is a shared no-op,
+// so instrumented code costs one virtual call and nothing is kept. Given a
+// MeterRegistry (Spring Boot Actuator defines one), counters and gauges are
+// exported as function meters read from here, and histograms also record
+// into a DistributionSummary of the same name.
+public class YadaMetrics {
+    private static final YadaMetrics DISABLED = new YadaMetrics(false, ObservationRegistry.NOOP);
+
+    private final boolean enabled;
+    private final ObservationRegistry observations;
+    // Null when nothing exports metrics
+    private final MeterRegistry meters;
+    // Sorted so reports list related metrics together
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    // Counters whose value is kept by someone else, read only when reported
+    private final Map<String, LongSupplier> sourcedCounters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    public YadaMetrics(boolean enabled, ObservationRegistry observations) {
+        this(enabled, observations, null);
+    }
+
+    public YadaMetrics(boolean enabled, ObservationRegistry observations, MeterRegistry meters) {
+        this.enabled = enabled;
+        this.observations = observations;
+        this.meters = meters;
+    }
+
+    public static YadaMetrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Timer timer(String name) {
+        return enabled ? timers.computeIfAbsent(name, n -> new Timer(n, observations, meters)) : Timer.NOOP;
+    }
+
+    public Histogram histogram(String name) {
+        return enabled ? histograms.computeIfAbsent(name, this::newHistogram) : Histogram.NOOP;
+    }
+
+    private Histogram newHistogram(String name) {
+        if (meters == null) {
+            return new Histogram();
+        }
+        DistributionSummary summary = DistributionSummary.builder(name).register(meters);
+        return new Histogram() {
+            @Override
+            public void record(long value) {
+                super.record(value);
+                summary.record(Math.max(0, value));
+            }
+        };
+    }
+
+    public Counter counter(String name) {
+        if (!enabled) {
+            return Counter.NOOP;
+        }
+        return counters.computeIfAbsent(name, n -> {
+            export(n);
+            return new Counter();
+        });
+    }
+
+    // A counter whose value is kept by someone else
+    public void counter(String name, LongSupplier source) {
+        if (enabled) {
+            sourcedCounters.put(name, source);
+            if (meters != null) {
+                FunctionCounter.builder(name, sourcedCounters, c -> c.get(name).getAsLong()).register(meters);
+            }
+        }
+    }
+
+    // Sampled only when a report is taken, or when the MeterRegistry is scraped
+    public void gauge(String name, LongSupplier value) {
+        if (enabled) {
+            gauges.put(name, value);
+            if (meters != null) {
+                // Reads through the map, so a re-registered gauge exports its latest source
+                Gauge.builder(name, gauges, g -> g.get(name).getAsLong()).register(meters);
+            }
+        }
+    }
+
+    private void export(String counter) {
+        if (meters != null) {
+            FunctionCounter.builder(counter, counters, c -> c.get(counter).getCount()).register(meters);
+        }
+    }
+
+    // Flat name -> value view, e.g. "food.search.p99" in milliseconds
+    public Map<String, Number> snapshot() {
+        Map<String, Number> values = new ConcurrentSkipListMap<>();
+        timers.forEach((name, timer) -> {
+            Histogram h = timer.getHistogram();
+            values.put(name + ".count", h.getCount());
+            values.put(name + ".mean", millis(Math.round(h.getMean())));
+            values.put(name + ".p50", millis(h.percentile(0.5)));
+            values.put(name + ".p99", millis(h.percentile(0.99)));
+            values.put(name + ".max", millis(h.getMax()));
+        });
+        histograms.forEach((name, h) -> {
+            values.put(name + ".count", h.getCount());
+            values.put(name + ".mean", h.getMean());
+            values.put(name + ".p50", h.percentile(0.5));
+            values.put(name + ".p99", h.percentile(0.99));
+            values.put(name + ".max", h.getMax());
+        });
+        counters.forEach((name, counter) -> values.put(name, counter.getCount()));
+        sourcedCounters.forEach((name, source) -> values.put(name, source.getAsLong()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    // One line per metric, for the console
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        timers.forEach((name, timer) -> {
+            Histogram h = timer.getHistogram();
+            lines.add(String.format("%-28s count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", name,
+                h.getCount(), millis(Math.round(h.getMean())), millis(h.percentile(0.5)),
+                millis(h.percentile(0.99)), millis(h.getMax())));
+        });
+        histograms.forEach((name, h) -> lines.add(String.format("%-28s count=%d mean=%.1f p50=%d p99=%d max=%d",
+            name, h.getCount(), h.getMean(), h.percentile(0.5), h.percentile(0.99), h.getMax())));
+        counters.forEach((name, counter) -> lines.add(String.format("%-28s %d", name, counter.getCount())));
+        sourcedCounters.forEach((name, source) -> lines.add(String.format("%-28s %d", name, source.getAsLong())));
+        gauges.forEach((name, gauge) -> lines.add(String.format("%-28s %d", name, gauge.getAsLong())));
+        return lines;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
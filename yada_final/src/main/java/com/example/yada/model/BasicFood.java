@@ -6,6 +6,10 @@ import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -13,4 +17,14 @@ public class BasicFood {
     private String id;
     private List<String> keywords;
     private int caloriesPerServing;
-}
\ No newline at end of file
+    // Per serving, Nutrient.COUNT wide in Nutrient order; the CALORIES slot is
+    // unused. Null for foods that only track calories.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonSerialize(using = NutrientVectorJson.Serializer.class)
+    @JsonDeserialize(using = NutrientVectorJson.Deserializer.class)
+    private double[] nutrients;
+
+    public BasicFood(String id, List<String> keywords, int caloriesPerServing) {
+        this(id, keywords, caloriesPerServing, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.yada.model;
+
+import java.time.LocalDate;
+
+import lombok.Value;
+
+// One day of a streamed calorie report
+@Value
+public class DailyCalories {
+    LocalDate date;
+    int calories;
+}
@@ -1,10 +1,17 @@
 package com.example.yada.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 import lombok.Data;
 import java.time.LocalDate;
 import java.util.*;
 
+// Sequence first, so a range read can stop at the first day past its end
 @Data
+@JsonPropertyOrder({ "journalSequence", "entries" })
 public class DailyLog {
-    private Map<LocalDate, List<LogEntry>> entries = new HashMap<>();
+    // Date-ordered so snapshots and range reads walk days in order
+    private NavigableMap<LocalDate, List<LogEntry>> entries = new TreeMap<>();
+    // Last journal record folded into this snapshot
+    private long journalSequence;
 }
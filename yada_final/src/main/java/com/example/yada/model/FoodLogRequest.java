@@ -0,0 +1,17 @@
+package com.example.yada.model;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One entry of a batch log or bulk import
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoodLogRequest {
+    private LocalDate date;
+    private String foodId;
+    private double servings;
+}
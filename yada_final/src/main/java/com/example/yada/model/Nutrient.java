@@ -0,0 +1,46 @@
+package com.example.yada.model;
+
+import java.util.Locale;
+
+// The fixed slots of a nutrient vector, in vector order. Every vector has
+// exactly COUNT doubles, so sums can be written out slot by slot.
+public enum Nutrient {
+    CALORIES("calories", "kcal"),
+    PROTEIN("protein", "g"),
+    CARBS("carbs", "g"),
+    FAT("fat", "g"),
+    SATURATED_FAT("saturatedFat", "g"),
+    FIBER("fiber", "g"),
+    SUGAR("sugar", "g"),
+    SODIUM("sodium", "mg");
+
+    public static final int COUNT = values().length;
+
+    private final String key;
+    private final String unit;
+
+    Nutrient(String key, String unit) {
+        this.key = key;
+        this.unit = unit;
+    }
+
+    // Name used in JSON and on the command line
+    public String getKey() {
+        return key;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    // Matches the key or the constant name, ignoring case, '_' and '-'
+    public static Nutrient of(String name) {
+        String wanted = name == null ? "" : name.replaceAll("[_\\-\\s]", "").toLowerCase(Locale.ROOT);
+        for (Nutrient nutrient : values()) {
+            if (nutrient.key.toLowerCase(Locale.ROOT).equals(wanted)) {
+                return nutrient;
+            }
+        }
+        throw new IllegalArgumentException("Unknown nutrient '" + name + "'!");
+    }
+}
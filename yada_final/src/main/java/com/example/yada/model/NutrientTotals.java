@@ -0,0 +1,52 @@
+package com.example.yada.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// An immutable nutrient vector: what a day, a range or some servings of a food add up to
+public final class NutrientTotals {
+    private final double[] values;
+
+    public NutrientTotals(double[] values) {
+        if (values.length != Nutrient.COUNT) {
+            throw new IllegalArgumentException("Expected " + Nutrient.COUNT + " nutrient values!");
+        }
+        this.values = values.clone();
+    }
+
+    public double get(Nutrient nutrient) {
+        return values[nutrient.ordinal()];
+    }
+
+    public long getCalories() {
+        return Math.round(values[Nutrient.CALORIES.ordinal()]);
+    }
+
+    // Every nutrient by key, in Nutrient order; also the JSON form
+    @JsonValue
+    public Map<String, Double> asMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (Nutrient nutrient : Nutrient.values()) {
+            map.put(nutrient.getKey(), values[nutrient.ordinal()]);
+        }
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NutrientTotals other && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
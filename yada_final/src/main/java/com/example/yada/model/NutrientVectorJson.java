@@ -0,0 +1,58 @@
+package com.example.yada.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+// A food's nutrient vector as a JSON object keyed by nutrient, e.g.
+// {"protein":0.5,"fat":0.3}. Zero slots are left out; calories are never
+// written here since they stay in caloriesPerServing.
+public final class NutrientVectorJson {
+    private NutrientVectorJson() {
+    }
+
+    public static class Serializer extends JsonSerializer<double[]> {
+        @Override
+        public void serialize(double[] vector, JsonGenerator out, SerializerProvider provider) throws IOException {
+            out.writeStartObject();
+            for (Nutrient nutrient : Nutrient.values()) {
+                if (nutrient != Nutrient.CALORIES && vector[nutrient.ordinal()] != 0) {
+                    out.writeNumberField(nutrient.getKey(), vector[nutrient.ordinal()]);
+                }
+            }
+            out.writeEndObject();
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<double[]> {
+        @Override
+        public double[] deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw JsonMappingException.from(parser, "Nutrients must be an object");
+            }
+            double[] vector = new double[Nutrient.COUNT];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                Nutrient nutrient;
+                try {
+                    nutrient = Nutrient.of(name);
+                } catch (IllegalArgumentException e) {
+                    throw JsonMappingException.from(parser, e.getMessage(), e);
+                }
+                if (nutrient == Nutrient.CALORIES) {
+                    throw JsonMappingException.from(parser, "Calories belong in caloriesPerServing");
+                }
+                vector[nutrient.ordinal()] = parser.getDoubleValue();
+            }
+            return vector;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.yada.model;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+// Who a service call acts for. Daily logs and profiles are kept per user; the
+// food catalog is shared by everyone.
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class UserContext {
+    private static final Pattern VALID_ID = Pattern.compile("[a-z0-9_-]{1,64}");
+
+    // The single-user data files at the root of the data directory
+    public static final UserContext DEFAULT = new UserContext("default");
+
+    String userId;
+
+    // Ids name directories, so they are case-folded and kept to a safe alphabet
+    public static UserContext of(String userId) {
+        String id = userId == null ? "" : userId.trim().toLowerCase(Locale.ROOT);
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid user ID '" + userId + "'!");
+        }
+        return id.equals(DEFAULT.userId) ? DEFAULT : new UserContext(id);
+    }
+
+    public boolean isDefault() {
+        return this == DEFAULT;
+    }
+}
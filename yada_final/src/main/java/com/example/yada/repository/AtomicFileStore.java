@@ -0,0 +1,213 @@
+package com.example.yada.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Crash-safe data files. A write goes to a temp file that is fsynced and then
+// renamed over the target; the previous generation is kept as <name>.bak and
+// each generation has a <name>.crc sidecar. Reads verify the checksum and fall
+// back to the .bak generation when the current file is damaged.
+public final class AtomicFileStore {
+    private static final String BACKUP = ".bak";
+    private static final String CHECKSUM = ".crc";
+    private static final String TEMP = ".tmp";
+    private static final String DAMAGED = ".damaged-";
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    private AtomicFileStore() {
+    }
+
+    public static long write(Path target, Writer writer) throws IOException {
+        synchronized (lockFor(target)) {
+            return writeLocked(target, writer);
+        }
+    }
+
+    // Writes of one file serialize on its lock (they share the temp name). Callers
+    // that snapshot data before writing hold it across both, so an older image
+    // can't land after a newer one.
+    static Object lockFor(Path target) {
+        return LOCKS[Math.floorMod(target.toAbsolutePath().normalize().hashCode(), LOCKS.length)];
+    }
+
+    private static long writeLocked(Path target, Writer writer) throws IOException {
+        Path temp = sibling(target, TEMP);
+        CRC32 crc = new CRC32();
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new CheckedOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel)), crc);
+            writer.write(new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Serializers close their target; the channel must stay open for fsync
+                    flush();
+                }
+            });
+            out.flush();
+            channel.force(true);
+            size = channel.size();
+        }
+
+        // Current generation becomes the fallback before the new one takes its place
+        if (Files.exists(target)) {
+            move(target, sibling(target, BACKUP));
+            Path checksum = sibling(target, CHECKSUM);
+            if (Files.exists(checksum)) {
+                move(checksum, sibling(sibling(target, BACKUP), CHECKSUM));
+            } else {
+                Files.deleteIfExists(sibling(sibling(target, BACKUP), CHECKSUM));
+            }
+        }
+        move(temp, target);
+        writeChecksum(target, crc.getValue());
+        syncDirectory(target);
+        return size;
+    }
+
+    public static long write(Path target, byte[] bytes) throws IOException {
+        return write(target, out -> out.write(bytes));
+    }
+
+    // Returns null if neither generation exists
+    public static <T> T read(Path target, Reader<T> reader) throws IOException {
+        Path backup = sibling(target, BACKUP);
+        IOException failure = null;
+        for (Path candidate : new Path[] { target, backup }) {
+            if (!Files.exists(candidate)) {
+                continue;
+            }
+            try {
+                return readVerified(candidate, reader);
+            } catch (IOException e) {
+                System.out.println("Damaged data file " + candidate.getFileName() + ": " + e.getMessage());
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    // True if either generation exists
+    public static boolean exists(Path target) {
+        return Files.exists(target) || Files.exists(sibling(target, BACKUP));
+    }
+
+    // Renames both generations and their checksums to <name>.damaged-<millis>, so
+    // the next write can't rotate the last recoverable copy away. Returns the new
+    // name of the current generation, or of the backup if only that existed.
+    public static Path moveAside(Path target) throws IOException {
+        return moveAside(target, DAMAGED + System.currentTimeMillis());
+    }
+
+    // Same, with the given suffix; an earlier file of that name is replaced
+    public static Path moveAside(Path target, String suffix) throws IOException {
+        synchronized (lockFor(target)) {
+            Path moved = null;
+            for (Path file : new Path[] { sibling(target, BACKUP), target }) {
+                if (Files.exists(file)) {
+                    moved = sibling(file, suffix);
+                    move(file, moved);
+                }
+                Path checksum = sibling(file, CHECKSUM);
+                if (Files.exists(checksum)) {
+                    move(checksum, sibling(checksum, suffix));
+                }
+            }
+            syncDirectory(target);
+            return moved;
+        }
+    }
+
+    private static <T> T readVerified(Path file, Reader<T> reader) throws IOException {
+        CRC32 crc = new CRC32();
+        T value;
+        try (InputStream in = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc)) {
+            value = reader.read(new FilterInputStream(in) {
+                @Override
+                public void close() {
+                    // Parsers close their source; the checksum still needs the tail
+                }
+            });
+            // The parser may stop before trailing whitespace; the checksum covers it all
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        Path checksum = sibling(file, CHECKSUM);
+        // Files written before checksums existed have no sidecar and are trusted as-is
+        if (Files.exists(checksum)) {
+            long expected = Long.parseLong(Files.readString(checksum, StandardCharsets.US_ASCII).trim(), 16);
+            if (expected != crc.getValue()) {
+                throw new IOException("checksum mismatch");
+            }
+        }
+        return value;
+    }
+
+    private static void writeChecksum(Path target, long value) throws IOException {
+        Path checksum = sibling(target, CHECKSUM);
+        Path temp = sibling(checksum, TEMP);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(StandardCharsets.US_ASCII.encode(Long.toHexString(value)));
+            channel.force(true);
+        }
+        move(temp, checksum);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void syncDirectory(Path file) {
+        Path dir = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory for fsync
+        }
+    }
+
+    static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+}
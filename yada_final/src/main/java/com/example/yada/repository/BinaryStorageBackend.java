@@ -0,0 +1,384 @@
+package com.example.yada.repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.UserProfile;
+
+// Compact binary encoding. Every file starts with a magic/version/dataset header.
+// Repeated strings (keywords, ingredient and logged food ids) live in a string
+// table and are referenced by varint ordinal; counts and calories are varints.
+// Log days are length-prefixed (epoch day, byte length, entries) so a range read
+// skips days it does not need. Nullable strings and collections are encoded as
+// length+1 with 0 meaning null, which keeps JSON <-> binary conversion lossless.
+// Version 2 adds each basic food's nutrient vector; version 1 files still read.
+public class BinaryStorageBackend implements StorageBackend {
+    private static final int MAGIC = 0x59414441; // "YADA"
+    private static final int VERSION = 2;
+    private static final int BASIC_FOODS = 1;
+    private static final int COMPOSITE_FOODS = 2;
+    private static final int DAILY_LOGS = 3;
+    private static final int USER_PROFILE = 4;
+
+    @Override
+    public String extension() {
+        return ".bin";
+    }
+
+    @Override
+    public void readBasicFoods(InputStream in, Consumer<BasicFood> sink) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        int version = header(data, BASIC_FOODS);
+        String[] strings = readStringTable(data);
+        int count = readVarInt(data);
+        for (int i = 0; i < count; i++) {
+            String id = readString(data);
+            List<String> keywords = readStringRefs(data, strings);
+            int calories = zigZagDecode(readVarInt(data));
+            double[] nutrients = null;
+            int size = version < 2 ? 0 : readVarInt(data);
+            if (size > 0) {
+                double[] stored = new double[size - 1];
+                for (int j = 0; j < stored.length; j++) {
+                    stored[j] = data.readDouble();
+                }
+                // Written with a different nutrient list: missing ones are zero, unknown ones dropped
+                nutrients = Arrays.copyOf(stored, Nutrient.COUNT);
+            }
+            sink.accept(new BasicFood(id, keywords, calories, nutrients));
+        }
+    }
+
+    @Override
+    public void readCompositeFoods(InputStream in, Consumer<CompositeFood> sink) throws IOException {
+        DataInputStream data = input(in, COMPOSITE_FOODS);
+        String[] strings = readStringTable(data);
+        int count = readVarInt(data);
+        for (int i = 0; i < count; i++) {
+            String id = readString(data);
+            List<String> keywords = readStringRefs(data, strings);
+            Map<String, Double> ingredients = null;
+            int size = readVarInt(data);
+            if (size > 0) {
+                ingredients = new LinkedHashMap<>();
+                for (int j = 0; j < size - 1; j++) {
+                    ingredients.put(readRef(data, strings), data.readDouble());
+                }
+            }
+            sink.accept(new CompositeFood(id, keywords, ingredients));
+        }
+    }
+
+    @Override
+    public DailyLog readDailyLog(InputStream in, LocalDate from, LocalDate to) throws IOException {
+        DataInputStream data = input(in, DAILY_LOGS);
+        DailyLog log = new DailyLog();
+        log.setJournalSequence(readVarLong(data));
+        String[] foodIds = readStringTable(data);
+        int days = readVarInt(data);
+        for (int d = 0; d < days; d++) {
+            LocalDate date = LocalDate.ofEpochDay(zigZagDecode(readVarLong(data)));
+            int length = readVarInt(data);
+            if ((from != null && date.isBefore(from)) || (to != null && date.isAfter(to))) {
+                data.skipNBytes(length);
+                continue;
+            }
+            int count = readVarInt(data);
+            List<LogEntry> entries = new ArrayList<>(count);
+            for (int e = 0; e < count; e++) {
+                LogEntry entry = new LogEntry();
+                entry.setFoodId(readRef(data, foodIds));
+                entry.setServings(data.readDouble());
+                entries.add(entry);
+            }
+            log.getEntries().put(date, entries);
+        }
+        return log;
+    }
+
+    @Override
+    public UserProfile readUserProfile(InputStream in) throws IOException {
+        DataInputStream data = input(in, USER_PROFILE);
+        UserProfile profile = new UserProfile();
+        profile.setGender(readString(data));
+        profile.setHeight(data.readDouble());
+        profile.setAge(zigZagDecode(readVarInt(data)));
+        profile.setWeight(data.readDouble());
+        profile.setActivityLevel(readString(data));
+        profile.setCalorieMethod(readString(data));
+        return profile;
+    }
+
+    @Override
+    public void writeBasicFoods(OutputStream out, List<BasicFood> foods) throws IOException {
+        DataOutputStream data = output(out, BASIC_FOODS);
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        foods.forEach(f -> intern(strings, f.getKeywords()));
+        writeStringTable(data, strings);
+        writeVarInt(data, foods.size());
+        for (BasicFood food : foods) {
+            writeString(data, food.getId());
+            writeStringRefs(data, food.getKeywords(), strings);
+            writeVarInt(data, zigZagEncode(food.getCaloriesPerServing()));
+            double[] nutrients = food.getNutrients();
+            writeVarInt(data, nutrients == null ? 0 : nutrients.length + 1);
+            if (nutrients != null) {
+                for (double value : nutrients) {
+                    data.writeDouble(value);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    @Override
+    public void writeCompositeFoods(OutputStream out, List<CompositeFood> foods) throws IOException {
+        DataOutputStream data = output(out, COMPOSITE_FOODS);
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (CompositeFood food : foods) {
+            intern(strings, food.getKeywords());
+            if (food.getIngredients() != null) {
+                intern(strings, food.getIngredients().keySet());
+            }
+        }
+        writeStringTable(data, strings);
+        writeVarInt(data, foods.size());
+        for (CompositeFood food : foods) {
+            writeString(data, food.getId());
+            writeStringRefs(data, food.getKeywords(), strings);
+            Map<String, Double> ingredients = food.getIngredients();
+            writeVarInt(data, ingredients == null ? 0 : ingredients.size() + 1);
+            if (ingredients != null) {
+                for (Map.Entry<String, Double> ingredient : ingredients.entrySet()) {
+                    writeRef(data, ingredient.getKey(), strings);
+                    data.writeDouble(ingredient.getValue());
+                }
+            }
+        }
+        data.flush();
+    }
+
+    @Override
+    public void writeDailyLog(OutputStream out, DailyLog log) throws IOException {
+        DataOutputStream data = output(out, DAILY_LOGS);
+        writeVarLong(data, log.getJournalSequence());
+        Map<String, Integer> foodIds = new LinkedHashMap<>();
+        for (List<LogEntry> entries : log.getEntries().values()) {
+            for (LogEntry entry : entries) {
+                if (entry.getFoodId() != null) {
+                    foodIds.putIfAbsent(entry.getFoodId(), foodIds.size());
+                }
+            }
+        }
+        writeStringTable(data, foodIds);
+
+        Map<LocalDate, List<LogEntry>> days = log.getEntries();
+        writeVarInt(data, days.size());
+        ByteArrayOutputStream dayBuffer = new ByteArrayOutputStream();
+        DataOutputStream day = new DataOutputStream(dayBuffer);
+        for (Map.Entry<LocalDate, List<LogEntry>> entry : days.entrySet()) {
+            dayBuffer.reset();
+            writeVarInt(day, entry.getValue().size());
+            for (LogEntry logEntry : entry.getValue()) {
+                writeRef(day, logEntry.getFoodId(), foodIds);
+                day.writeDouble(logEntry.getServings());
+            }
+            day.flush();
+            writeVarLong(data, zigZagEncode(entry.getKey().toEpochDay()));
+            writeVarInt(data, dayBuffer.size());
+            dayBuffer.writeTo(data);
+        }
+        data.flush();
+    }
+
+    @Override
+    public void writeUserProfile(OutputStream out, UserProfile profile) throws IOException {
+        DataOutputStream data = output(out, USER_PROFILE);
+        writeString(data, profile.getGender());
+        data.writeDouble(profile.getHeight());
+        writeVarInt(data, zigZagEncode(profile.getAge()));
+        data.writeDouble(profile.getWeight());
+        writeString(data, profile.getActivityLevel());
+        writeString(data, profile.getCalorieMethod());
+        data.flush();
+    }
+
+    private static DataInputStream input(InputStream in, int dataset) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        header(data, dataset);
+        return data;
+    }
+
+    // Checks the header and returns the file's format version
+    private static int header(DataInputStream data, int dataset) throws IOException {
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a binary YADA data file");
+        }
+        int version = data.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary format version " + version);
+        }
+        int actual = data.readUnsignedByte();
+        if (actual != dataset) {
+            throw new IOException("Expected dataset " + dataset + " but found " + actual);
+        }
+        return version;
+    }
+
+    private static DataOutputStream output(OutputStream out, int dataset) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte(dataset);
+        return data;
+    }
+
+    private static void intern(Map<String, Integer> strings, Collection<String> values) {
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    strings.putIfAbsent(value, strings.size());
+                }
+            }
+        }
+    }
+
+    private static void writeStringTable(DataOutputStream out, Map<String, Integer> strings) throws IOException {
+        writeVarInt(out, strings.size());
+        for (String value : strings.keySet()) {
+            writeString(out, value);
+        }
+    }
+
+    private static String[] readStringTable(DataInputStream in) throws IOException {
+        String[] strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(in);
+        }
+        return strings;
+    }
+
+    private static void writeStringRefs(DataOutputStream out, List<String> values,
+                                        Map<String, Integer> strings) throws IOException {
+        writeVarInt(out, values == null ? 0 : values.size() + 1);
+        if (values != null) {
+            for (String value : values) {
+                writeRef(out, value, strings);
+            }
+        }
+    }
+
+    private static List<String> readStringRefs(DataInputStream in, String[] strings) throws IOException {
+        int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            values.add(readRef(in, strings));
+        }
+        return values;
+    }
+
+    private static void writeRef(DataOutputStream out, String value, Map<String, Integer> strings) throws IOException {
+        writeVarInt(out, value == null ? 0 : strings.get(value) + 1);
+    }
+
+    private static String readRef(DataInputStream in, String[] strings) throws IOException {
+        int ref = readVarInt(in);
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length - 1), StandardCharsets.UTF_8);
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varlong");
+    }
+
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
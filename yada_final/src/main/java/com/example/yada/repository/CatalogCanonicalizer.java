@@ -0,0 +1,163 @@
+package com.example.yada.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+
+// Load-time cleanup of the food catalog. Ids, keywords and ingredient ids are
+// pooled so each distinct string exists once, and foods with the same keywords
+// share one immutable list. Foods repeating an id (case-insensitively, as
+// FoodIndex matches them) are resolved by the configured policy. The pools only
+// live for one load; foods added later are stored as given.
+class CatalogCanonicalizer {
+    enum DuplicatePolicy {
+        // Matches what lookups always returned for a repeated id
+        KEEP_FIRST,
+        KEEP_LAST,
+        // The first food, with the keywords of every duplicate added to it
+        MERGE,
+        // Refuse to start on a catalog with repeated ids
+        REJECT;
+
+        static DuplicatePolicy of(String name) {
+            try {
+                return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown duplicate policy '" + name + "'!", e);
+            }
+        }
+    }
+
+    private final DuplicatePolicy policy;
+    private final boolean pooling;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<List<String>, List<String>> keywordLists = new HashMap<>();
+    private final List<String> duplicates = new ArrayList<>();
+
+    CatalogCanonicalizer(DuplicatePolicy policy, boolean pooling) {
+        this.policy = policy;
+        this.pooling = pooling;
+    }
+
+    // Called as each catalog file is (re)read and once it is reported, so every
+    // file (and a retry from its backup) starts clean
+    void startDataset() {
+        duplicates.clear();
+    }
+
+    void addBasic(BasicFood food, List<BasicFood> foods, FoodIndex index) {
+        if (pooling) {
+            food.setId(intern(food.getId()));
+            food.setKeywords(keywords(food.getKeywords()));
+        }
+        BasicFood earlier = index.findBasic(food.getId()).orElse(null);
+        if (earlier == null) {
+            foods.add(food);
+            index.addBasic(food);
+            return;
+        }
+        BasicFood kept = resolve(earlier, food, earlier.getId(), BasicFood::getKeywords, BasicFood::setKeywords);
+        if (kept != earlier || policy == DuplicatePolicy.MERGE) {
+            foods.set(indexOf(foods, earlier), kept);
+            index.removeBasic(earlier.getId());
+            index.addBasic(kept);
+        }
+    }
+
+    void addComposite(CompositeFood food, List<CompositeFood> foods, FoodIndex index) {
+        if (pooling) {
+            food.setId(intern(food.getId()));
+            food.setKeywords(keywords(food.getKeywords()));
+            if (food.getIngredients() != null) {
+                Map<String, Double> ingredients = new LinkedHashMap<>();
+                food.getIngredients().forEach((id, servings) -> ingredients.put(intern(id), servings));
+                food.setIngredients(ingredients);
+            }
+        }
+        CompositeFood earlier = index.findComposite(food.getId()).orElse(null);
+        if (earlier == null) {
+            foods.add(food);
+            index.addComposite(food);
+            return;
+        }
+        CompositeFood kept = resolve(earlier, food, earlier.getId(),
+            CompositeFood::getKeywords, CompositeFood::setKeywords);
+        if (kept != earlier || policy == DuplicatePolicy.MERGE) {
+            foods.set(indexOf(foods, earlier), kept);
+            index.removeComposite(earlier.getId());
+            index.addComposite(kept);
+        }
+    }
+
+    // Ids resolved in the dataset being read, in the order they were met
+    List<String> getDuplicates() {
+        return duplicates;
+    }
+
+    DuplicatePolicy getPolicy() {
+        return policy;
+    }
+
+    private <T> T resolve(T earlier, T later, String id, Function<T, List<String>> keywordsOf,
+                          BiConsumer<T, List<String>> setKeywords) {
+        duplicates.add(id);
+        switch (policy) {
+            case KEEP_LAST:
+                return later;
+            case MERGE:
+                LinkedHashSet<String> union = new LinkedHashSet<>();
+                if (keywordsOf.apply(earlier) != null) {
+                    union.addAll(keywordsOf.apply(earlier));
+                }
+                if (keywordsOf.apply(later) != null) {
+                    union.addAll(keywordsOf.apply(later));
+                }
+                setKeywords.accept(earlier, keywords(new ArrayList<>(union)));
+                return earlier;
+            case REJECT:
+                throw new IllegalStateException("Duplicate food ID '" + id + "' in the catalog!");
+            default:
+                return earlier;
+        }
+    }
+
+    private String intern(String value) {
+        return value == null ? null : strings.computeIfAbsent(value, v -> v);
+    }
+
+    // An immutable list shared by every food with the same keywords in the same order
+    private List<String> keywords(List<String> keywords) {
+        if (keywords == null) {
+            return null;
+        }
+        String[] pooled = new String[keywords.size()];
+        for (int i = 0; i < pooled.length; i++) {
+            pooled[i] = intern(keywords.get(i));
+        }
+        // List.of is the most compact form but refuses null elements
+        List<String> list = Arrays.asList(pooled).contains(null)
+            ? Collections.unmodifiableList(Arrays.asList(pooled)) : List.of(pooled);
+        return pooling ? keywordLists.computeIfAbsent(list, l -> l) : list;
+    }
+
+    private static <T> int indexOf(List<T> foods, T food) {
+        // By identity: two duplicates can be equal as values
+        for (int i = foods.size() - 1; i >= 0; i--) {
+            if (foods.get(i) == food) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Food missing from the loaded list");
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.LogEntry;
+
+// The whole history on heap as three parallel primitive columns (epoch day,
+// interned food ordinal, servings) kept sorted by day, with each day's entries
+// in logging order. A day is a contiguous run found by binary search, so reads
+// walk primitives and never touch a map or allocate per entry. A second sorted
+// array holds just the distinct logged days, so the day count is live and
+// listing dates is proportional to the number of days, not entries.
+public class ColumnarLogStore implements LogStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MERGE_THRESHOLD = 32;
+
+    private final FoodIdTable foodIds = new FoodIdTable();
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] foods = new int[INITIAL_CAPACITY];
+    private double[] servings = new double[INITIAL_CAPACITY];
+    private int size;
+    private int[] dayIndex = new int[INITIAL_CAPACITY];
+    private int dayCount;
+
+    // Persisted snapshots carry LocalDate keys; clamp so open ranges stay in int
+    public static int epochDay(LocalDate date) {
+        long day = date.toEpochDay();
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, day));
+    }
+
+    @Override
+    public synchronized boolean apply(LogMutation mutation) {
+        int day = epochDay(mutation.getDate());
+        switch (mutation.getOp()) {
+            case ADD -> {
+                int index = upperBound(day);
+                if (index == 0 || days[index - 1] != day) {
+                    addDay(day);
+                }
+                insert(index, day, foodIds.ordinal(mutation.getFoodId()), mutation.getServings());
+                return true;
+            }
+            case REMOVE -> {
+                int ordinal = foodIds.find(mutation.getFoodId());
+                if (ordinal < 0) {
+                    return false;
+                }
+                for (int i = lowerBound(day); i < size && days[i] == day; i++) {
+                    if (foods[i] == ordinal && Double.compare(servings[i], mutation.getServings()) == 0) {
+                        delete(i, i + 1);
+                        if ((i == 0 || days[i - 1] != day) && (i == size || days[i] != day)) {
+                            removeDay(day);
+                        }
+                        return true;
+                    }
+                }
+                return false;
+            }
+            case CLEAR -> {
+                int from = lowerBound(day);
+                int to = upperBound(day);
+                if (to == from) {
+                    return false;
+                }
+                delete(from, to);
+                removeDay(day);
+                return true;
+            }
+            default -> throw new IllegalStateException("Unknown log mutation " + mutation.getOp());
+        }
+    }
+
+    // A large all-ADD batch (a bulk import) is sorted by day and merged into the
+    // columns in one backwards pass instead of shifting the tail once per entry
+    @Override
+    public synchronized int applyAll(List<LogMutation> mutations) {
+        int count = mutations.size();
+        if (count < MERGE_THRESHOLD
+                || !mutations.stream().allMatch(m -> m.getOp() == LogMutation.Op.ADD)) {
+            return LogStore.super.applyAll(mutations);
+        }
+        // Day in the high half, batch position in the low half: a stable sort by day
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) epochDay(mutations.get(i).getDate()) << 32) | i;
+        }
+        Arrays.sort(order);
+        if (size + count > days.length) {
+            int capacity = Math.max(size + count, days.length * 2);
+            days = Arrays.copyOf(days, capacity);
+            foods = Arrays.copyOf(foods, capacity);
+            servings = Arrays.copyOf(servings, capacity);
+        }
+        int existing = size - 1;
+        for (int target = size + count - 1, next = count - 1; next >= 0; target--) {
+            int day = (int) (order[next] >> 32);
+            // Equal days: the batch goes after what was already logged
+            if (existing >= 0 && days[existing] > day) {
+                days[target] = days[existing];
+                foods[target] = foods[existing];
+                servings[target] = servings[existing];
+                existing--;
+            } else {
+                LogMutation mutation = mutations.get((int) order[next]);
+                days[target] = day;
+                foods[target] = foodIds.ordinal(mutation.getFoodId());
+                servings[target] = mutation.getServings();
+                next--;
+            }
+        }
+        size += count;
+        for (int i = 0; i < count; i++) {
+            int day = (int) (order[i] >> 32);
+            if ((i == 0 || (int) (order[i - 1] >> 32) != day)
+                    && Arrays.binarySearch(dayIndex, 0, dayCount, day) < 0) {
+                addDay(day);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized List<LogEntry> entries(LocalDate date) {
+        int day = epochDay(date);
+        return toEntries(lowerBound(day), upperBound(day));
+    }
+
+    @Override
+    public synchronized boolean hasEntries(LocalDate date) {
+        int day = epochDay(date);
+        int i = lowerBound(day);
+        return i < size && days[i] == day;
+    }
+
+    @Override
+    public synchronized void forEachDay(LocalDate from, LocalDate to, BiConsumer<LocalDate, List<LogEntry>> visitor) {
+        int last = epochDay(to);
+        int i = lowerBound(epochDay(from));
+        while (i < size && days[i] <= last) {
+            int end = upperBound(days[i]);
+            visitor.accept(LocalDate.ofEpochDay(days[i]), toEntries(i, end));
+            i = end;
+        }
+    }
+
+    @Override
+    public synchronized void forEachEntry(LocalDate from, LocalDate to, EntryVisitor visitor) {
+        int last = epochDay(to);
+        for (int i = lowerBound(epochDay(from)); i < size && days[i] <= last; i++) {
+            visitor.visit(days[i], foods[i], servings[i]);
+        }
+    }
+
+    @Override
+    public String foodId(int foodOrdinal) {
+        return foodIds.id(foodOrdinal);
+    }
+
+    @Override
+    public int foodCount() {
+        return foodIds.size();
+    }
+
+    @Override
+    public synchronized List<LocalDate> datesWithLogs() {
+        List<LocalDate> dates = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) {
+            dates.add(LocalDate.ofEpochDay(dayIndex[i]));
+        }
+        return dates;
+    }
+
+    @Override
+    public synchronized int loggedDays() {
+        return dayCount;
+    }
+
+    // Materialized copy; JsonDataStorage sets the journal sequence before saving
+    @Override
+    public synchronized DailyLog snapshot() {
+        DailyLog log = new DailyLog();
+        forEachDay(LocalDate.MIN, LocalDate.MAX, log.getEntries()::put);
+        return log;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Persisted by JsonDataStorage as the daily log snapshot
+    }
+
+    @Override
+    public void close() throws IOException {
+        foodIds.close();
+    }
+
+    // First index whose day is >= day
+    private int lowerBound(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index whose day is > day; new entries go here to keep logging order
+    private int upperBound(int day) {
+        // Appending to the latest day is the common case
+        if (size == 0 || days[size - 1] <= day) {
+            return size;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void insert(int index, int day, int food, double serving) {
+        if (size == days.length) {
+            int capacity = size * 2;
+            days = Arrays.copyOf(days, capacity);
+            foods = Arrays.copyOf(foods, capacity);
+            servings = Arrays.copyOf(servings, capacity);
+        }
+        int tail = size - index;
+        System.arraycopy(days, index, days, index + 1, tail);
+        System.arraycopy(foods, index, foods, index + 1, tail);
+        System.arraycopy(servings, index, servings, index + 1, tail);
+        days[index] = day;
+        foods[index] = food;
+        servings[index] = serving;
+        size++;
+    }
+
+    private void delete(int from, int to) {
+        int tail = size - to;
+        System.arraycopy(days, to, days, from, tail);
+        System.arraycopy(foods, to, foods, from, tail);
+        System.arraycopy(servings, to, servings, from, tail);
+        size -= to - from;
+    }
+
+    private void addDay(int day) {
+        int index = -Arrays.binarySearch(dayIndex, 0, dayCount, day) - 1;
+        if (dayCount == dayIndex.length) {
+            dayIndex = Arrays.copyOf(dayIndex, dayCount * 2);
+        }
+        System.arraycopy(dayIndex, index, dayIndex, index + 1, dayCount - index);
+        dayIndex[index] = day;
+        dayCount++;
+    }
+
+    private void removeDay(int day) {
+        int index = Arrays.binarySearch(dayIndex, 0, dayCount, day);
+        System.arraycopy(dayIndex, index + 1, dayIndex, index, dayCount - index - 1);
+        dayCount--;
+    }
+
+    private List<LogEntry> toEntries(int from, int to) {
+        List<LogEntry> entries = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            LogEntry entry = new LogEntry();
+            entry.setFoodId(foodIds.id(foods[i]));
+            entry.setServings(servings[i]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
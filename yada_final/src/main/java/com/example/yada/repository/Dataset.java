@@ -0,0 +1,27 @@
+package com.example.yada.repository;
+
+public enum Dataset {
+    BASIC_FOODS("basicFoods"),
+    COMPOSITE_FOODS("compositeFoods"),
+    DAILY_LOGS("dailyLogs"),
+    USER_PROFILE("userProfile");
+
+    private final String baseName;
+
+    Dataset(String baseName) {
+        this.baseName = baseName;
+    }
+
+    public String getBaseName() {
+        return baseName;
+    }
+
+    // Daily logs and profiles live in each user's shard; the catalog is shared
+    public boolean isPerUser() {
+        return this == DAILY_LOGS || this == USER_PROFILE;
+    }
+
+    public String fileName(StorageBackend backend) {
+        return baseName + backend.extension();
+    }
+}
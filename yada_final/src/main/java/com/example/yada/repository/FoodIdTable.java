@@ -0,0 +1,78 @@
+package com.example.yada.repository;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Interned food ids: each distinct id gets a stable int ordinal. When backed by
+// an append-only file (one id per line), ordinals survive restarts.
+public class FoodIdTable implements Closeable {
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final BufferedWriter writer;
+
+    // In-memory table; ordinals last only as long as the process
+    public FoodIdTable() {
+        this.writer = null;
+    }
+
+    public FoodIdTable(Path file) throws IOException {
+        if (Files.exists(file)) {
+            for (String id : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                ordinals.putIfAbsent(id, ids.size());
+                ids.add(id);
+            }
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized int ordinal(String id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = ids.size();
+        if (writer != null) {
+            try {
+                writer.write(id);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not record food id " + id, e);
+            }
+        }
+        ids.add(id);
+        ordinals.put(id, next);
+        return next;
+    }
+
+    // -1 if the id has never been logged
+    public synchronized int find(String id) {
+        return ordinals.getOrDefault(id, -1);
+    }
+
+    public synchronized String id(int ordinal) {
+        return ids.get(ordinal);
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
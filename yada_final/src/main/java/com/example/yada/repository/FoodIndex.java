@@ -0,0 +1,152 @@
+package com.example.yada.repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+
+// Case-folded id -> food lookup over the catalog lists held by JsonDataStorage.
+// Lookups run in parallel under a read lock; catalog changes take the write lock.
+public class FoodIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, BasicFood> basicFoods = new HashMap<>();
+    private final Map<String, CompositeFood> compositeFoods = new HashMap<>();
+    private final KeywordIndex<BasicFood> basicKeywords = new KeywordIndex<>(
+        BasicFood::getId, BasicFood::getKeywords);
+    private final KeywordIndex<CompositeFood> compositeKeywords = new KeywordIndex<>(
+        CompositeFood::getId, CompositeFood::getKeywords);
+
+    public static String key(String id) {
+        return id == null ? null : id.toLowerCase(Locale.ROOT);
+    }
+
+    public void rebuild(List<BasicFood> basics, List<CompositeFood> composites) {
+        lock.writeLock().lock();
+        try {
+            clearBasic();
+            clearComposite();
+            basics.forEach(this::addBasic);
+            composites.forEach(this::addComposite);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clearBasic() {
+        lock.writeLock().lock();
+        try {
+            basicFoods.clear();
+            basicKeywords.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clearComposite() {
+        lock.writeLock().lock();
+        try {
+            compositeFoods.clear();
+            compositeKeywords.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<BasicFood> findBasic(String id) {
+        lock.readLock().lock();
+        try {
+            if (id == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(basicFoods.get(key(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<CompositeFood> findComposite(String id) {
+        lock.readLock().lock();
+        try {
+            if (id == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(compositeFoods.get(key(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            String key = key(id);
+            return key != null && (basicFoods.containsKey(key) || compositeFoods.containsKey(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<BasicFood> searchBasic(String searchTerm) {
+        lock.readLock().lock();
+        try {
+            return basicKeywords.search(KeywordIndex.normalize(searchTerm));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CompositeFood> searchComposite(String searchTerm) {
+        lock.readLock().lock();
+        try {
+            return compositeKeywords.search(KeywordIndex.normalize(searchTerm));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // putIfAbsent keeps the first of duplicate ids, same as the old linear scan
+    public void addBasic(BasicFood food) {
+        lock.writeLock().lock();
+        try {
+            basicFoods.putIfAbsent(key(food.getId()), food);
+            basicKeywords.add(food);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addComposite(CompositeFood food) {
+        lock.writeLock().lock();
+        try {
+            compositeFoods.putIfAbsent(key(food.getId()), food);
+            compositeKeywords.add(food);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBasic(String id) {
+        lock.writeLock().lock();
+        try {
+            basicFoods.remove(key(id));
+            basicKeywords.removeById(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeComposite(String id) {
+        lock.writeLock().lock();
+        try {
+            compositeFoods.remove(key(id));
+            compositeKeywords.removeById(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,96 +1,540 @@
 package com.example.yada.repository;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Repository;
 
+import com.example.yada.config.StorageProperties;
 import com.example.yada.model.BasicFood;
 import com.example.yada.model.CompositeFood;
 import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserContext;
 import com.example.yada.model.UserProfile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.annotation.PreDestroy;
 
+// The shared food catalog plus one shard (daily log + profile) per user. The
+// default user's files sit at the root of the data directory, everyone else's
+// under users/<id>/. Shards load on first access and are saved and dropped
+// when least recently used beyond users.max-active, or idle for idle-evict-ms.
+// Loading and saving run outside the shards lock, so a cold user only delays
+// callers asking for that same user.
 @Repository
 public class JsonDataStorage {
-    private final ObjectMapper mapper = new ObjectMapper();
-    private static final String DATA_DIR = "src/main/resources/data/";
+    private final ObjectMapper mapper = JsonStorageBackend.createMapper();
+    private final StorageProperties properties;
+    private final StorageBackend backend;
+    private final String dataDir;
 
     private List<BasicFood> basicFoods = new ArrayList<>();
     private List<CompositeFood> compositeFoods = new ArrayList<>();
-    private DailyLog dailyLog = new DailyLog();
-    private UserProfile userProfile = new UserProfile();
+    private final FoodIndex foodIndex = new FoodIndex();
+    private final StorageMetrics metrics = new StorageMetrics();
+    // Access-ordered, so iteration starts at the least recently used shard. A
+    // future completes once its shard has loaded.
+    private final Map<UserContext, CompletableFuture<UserShard>> shards = new LinkedHashMap<>(16, 0.75f, true);
+    // Shards being saved on eviction. Each completes with null once saved, or with
+    // the shard itself if the save failed and it stays in memory.
+    private final Map<UserContext, CompletableFuture<UserShard>> closing = new HashMap<>();
+    private final WriteBehindFlusher<PendingWrite> flusher;
+    private final ScheduledExecutorService maintenance;
+    private final List<LogListener> logListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<UserContext>> evictionListeners = new CopyOnWriteArrayList<>();
 
-    public JsonDataStorage() {
-        loadAllData();
+    // A dataset waiting for write-behind; user is null for the shared catalog
+    private record PendingWrite(UserContext user, Dataset dataset) {
     }
 
-    private void loadAllData() {
+    public JsonDataStorage(StorageProperties properties) {
+        this.properties = properties;
+        this.dataDir = properties.getDataDir();
+        this.backend = StorageBackend.forFormat(properties.getFormat());
         try {
-            // Convert fixed-size Arrays.asList() to mutable ArrayList
-            basicFoods = new ArrayList<>(Arrays.asList(
-                mapper.readValue(Paths.get(DATA_DIR + "basicFoods.json").toFile(), 
-                BasicFood[].class)
-            ));
-            
-            compositeFoods = new ArrayList<>(Arrays.asList(
-                mapper.readValue(Paths.get(DATA_DIR + "compositeFoods.json").toFile(), 
-                CompositeFood[].class)
-            ));
+            Files.createDirectories(Paths.get(dataDir));
         } catch (IOException e) {
-            System.out.println("No existing data found. Starting fresh.");
-            // Initialize empty lists if files are missing
-            basicFoods = new ArrayList<>();
-            compositeFoods = new ArrayList<>();
+            throw new UncheckedIOException("Could not create data directory " + dataDir, e);
+        }
+        loadCatalog();
+        // The default user is loaded eagerly, as the single-user app always did
+        shard(UserContext.DEFAULT);
+
+        StorageProperties.WriteBehind writeBehind = properties.getWriteBehind();
+        this.flusher = writeBehind.isEnabled()
+            ? new WriteBehindFlusher<>(writeBehind.getIntervalMs(), this::writePending, metrics)
+            : null;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "yada-storage-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.getJournal().isEnabled()) {
+            long interval = properties.getJournal().getCompactIntervalMs();
+            maintenance.scheduleWithFixedDelay(this::compactShards, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        long idle = properties.getUsers().getIdleEvictMs();
+        if (idle > 0) {
+            long interval = Math.max(1000, idle / 4);
+            maintenance.scheduleWithFixedDelay(this::evictIdleShards, interval, interval, TimeUnit.MILLISECONDS);
         }
     }
-    @PreDestroy
-    public void saveAllData() {
-        saveBasicFoods();
-        saveCompositeFoods();
-        saveDailyLogs();
-        saveUserProfile();
+
+    // Single streaming pass per catalog file: elements go straight into the list
+    // and the index, with no intermediate array. Repeated ids are resolved and
+    // strings pooled on the way in (see CatalogCanonicalizer).
+    private void loadCatalog() {
+        StorageProperties.Catalog settings = properties.getCatalog();
+        CatalogCanonicalizer canonicalizer = new CatalogCanonicalizer(
+            CatalogCanonicalizer.DuplicatePolicy.of(settings.getDuplicates()), settings.isCanonicalize());
+        basicFoods = load(dataPath(Dataset.BASIC_FOODS), in -> {
+            List<BasicFood> foods = new ArrayList<>();
+            foodIndex.clearBasic();
+            canonicalizer.startDataset();
+            backend.readBasicFoods(in, food -> canonicalizer.addBasic(food, foods, foodIndex));
+            return foods;
+        }, new ArrayList<>());
+        reportDuplicates(Dataset.BASIC_FOODS, canonicalizer);
+        compositeFoods = load(dataPath(Dataset.COMPOSITE_FOODS), in -> {
+            List<CompositeFood> foods = new ArrayList<>();
+            foodIndex.clearComposite();
+            canonicalizer.startDataset();
+            backend.readCompositeFoods(in, food -> canonicalizer.addComposite(food, foods, foodIndex));
+            return foods;
+        }, new ArrayList<>());
+        reportDuplicates(Dataset.COMPOSITE_FOODS, canonicalizer);
+        if (basicFoods.isEmpty()) {
+            foodIndex.clearBasic();
+        }
+        if (compositeFoods.isEmpty()) {
+            foodIndex.clearComposite();
+        }
     }
-    public void saveBasicFoods() {
+
+    private void reportDuplicates(Dataset dataset, CatalogCanonicalizer canonicalizer) {
+        List<String> duplicates = canonicalizer.getDuplicates();
+        if (!duplicates.isEmpty()) {
+            System.out.println("Resolved " + duplicates.size() + " duplicate food ID(s) in "
+                + dataset.fileName(backend) + " (" + canonicalizer.getPolicy().name().toLowerCase().replace('_', '-')
+                + "): " + String.join(", ", duplicates));
+        }
+        canonicalizer.startDataset();
+    }
+
+    // Only the dates in [from, to], without loading the user's shard: the
+    // persisted snapshot is read for that range and the journal records written
+    // since are folded in. A user already in memory is read from the live store,
+    // which also holds changes write-behind has not saved yet. Mapped segments
+    // are the log itself, so those users are always read through the shard.
+    public DailyLog loadDailyLogRange(UserContext user, LocalDate from, LocalDate to) {
+        UserShard active = residentShard(user);
+        if (active == null && "mapped".equalsIgnoreCase(properties.getLogStore())) {
+            active = shard(user);
+        }
+        if (active != null) {
+            return range(active.getLogStore(), from, to);
+        }
+        Path dir = shardDir(user);
+        DailyLog snapshot = load(dir.resolve(Dataset.DAILY_LOGS.fileName(backend)),
+            in -> backend.readDailyLog(in, from, to), new DailyLog());
+        LogJournal journal = new LogJournal(dir.resolve(UserShard.JOURNAL_FILE), mapper, 1);
+        if (!journal.exists()) {
+            return snapshot;
+        }
+        ColumnarLogStore store = new ColumnarLogStore();
+        snapshot.getEntries().forEach((date, entries) -> entries.forEach(entry ->
+            store.apply(LogMutation.add(date, entry.getFoodId(), entry.getServings()))));
         try {
-            mapper.writeValue(new File(DATA_DIR + "basicFoods.json"), basicFoods);
+            journal.replay(snapshot.getJournalSequence(), mutation -> {
+                if (!mutation.getDate().isBefore(from) && !mutation.getDate().isAfter(to)) {
+                    store.apply(mutation);
+                }
+            });
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("Could not read the daily log journal of user " + user.getUserId(), e);
         }
+        return range(store, from, to);
     }
 
-    public void saveCompositeFoods() {
+    private static DailyLog range(LogStore store, LocalDate from, LocalDate to) {
+        DailyLog log = new DailyLog();
+        store.forEachDay(from, to, log.getEntries()::put);
+        return log;
+    }
+
+    // The live profile of a user in memory; otherwise read straight from the
+    // profile file without loading the shard, so batch jobs over many users
+    // don't push active users out of the cache
+    public UserProfile loadUserProfile(UserContext user) {
+        UserShard active = residentShard(user);
+        if (active != null) {
+            return active.getUserProfile();
+        }
+        return load(shardDir(user).resolve(Dataset.USER_PROFILE.fileName(backend)),
+            backend::readUserProfile, new UserProfile());
+    }
+
+    // The user's shard if it is in memory, without loading it. A save of the same
+    // user still under way is waited for, so files read instead are complete.
+    private UserShard residentShard(UserContext user) {
+        CompletableFuture<UserShard> pending;
+        synchronized (shards) {
+            CompletableFuture<UserShard> future = shards.get(user);
+            if (future != null) {
+                return loaded(future);
+            }
+            pending = closing.get(user);
+        }
+        // Completes with the shard itself if its save failed and it stayed in memory
+        return pending == null ? null : join(pending);
+    }
+
+    // Both generations damaged: they are moved aside for manual recovery before
+    // starting fresh, since the next save would otherwise rotate them away
+    static <T> T load(Path file, AtomicFileStore.Reader<T> reader, T empty) {
         try {
-            mapper.writeValue(new File(DATA_DIR + "compositeFoods.json"), compositeFoods);
+            T value = AtomicFileStore.read(file, reader);
+            if (value != null) {
+                return value;
+            }
+            System.out.println("No existing " + file.getFileName() + " found. Starting fresh.");
         } catch (IOException e) {
-            e.printStackTrace();
+            Path kept;
+            try {
+                kept = AtomicFileStore.moveAside(file);
+            } catch (IOException moveFailure) {
+                throw new UncheckedIOException("Could not read " + file + " or its backup, nor move them aside", moveFailure);
+            }
+            System.out.println("Could not read " + file.getFileName() + " or its backup; kept them as "
+                + kept.getFileName() + ". Starting fresh.");
         }
+        return empty;
     }
 
-    public void saveDailyLogs() {
+    private UserShard shard(UserContext user) {
+        CompletableFuture<UserShard> future;
+        CompletableFuture<UserShard> previous = null;
+        Map<UserShard, CompletableFuture<UserShard>> victims = Map.of();
+        boolean loader = false;
+        synchronized (shards) {
+            future = shards.get(user);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                shards.put(user, future);
+                previous = closing.get(user);
+                victims = takeVictims();
+                loader = true;
+            }
+        }
+        if (loader) {
+            load(user, future, previous);
+            victims.forEach(this::evict);
+        }
+        UserShard shard = join(future);
+        shard.touch();
+        return shard;
+    }
+
+    // Reads the shard from disk, after any save of the same user still under way
+    private void load(UserContext user, CompletableFuture<UserShard> future, CompletableFuture<UserShard> previous) {
         try {
-            mapper.writeValue(new File(DATA_DIR + "dailyLogs.json"), dailyLog);
-        } catch (IOException e) {
-            e.printStackTrace();
+            UserShard survivor = previous == null ? null : join(previous);
+            future.complete(survivor != null ? survivor
+                : new UserShard(user, shardDir(user), properties, backend, mapper, metrics));
+        } catch (RuntimeException e) {
+            synchronized (shards) {
+                shards.remove(user, future);
+            }
+            future.completeExceptionally(e);
+        }
+    }
+
+    // Over capacity: takes the least recently used loaded shards out of the map.
+    // Called with the shards lock held; the caller saves them after releasing it.
+    private Map<UserShard, CompletableFuture<UserShard>> takeVictims() {
+        Map<UserShard, CompletableFuture<UserShard>> victims = new LinkedHashMap<>();
+        int excess = shards.size() - Math.max(1, properties.getUsers().getMaxActive());
+        Iterator<CompletableFuture<UserShard>> eldest = shards.values().iterator();
+        while (excess > 0 && eldest.hasNext()) {
+            CompletableFuture<UserShard> candidate = eldest.next();
+            UserShard shard = loaded(candidate);
+            if (shard != null) {
+                eldest.remove();
+                victims.put(shard, startClosing(shard));
+                excess--;
+            }
+        }
+        return victims;
+    }
+
+    private CompletableFuture<UserShard> startClosing(UserShard shard) {
+        CompletableFuture<UserShard> closed = new CompletableFuture<>();
+        closing.put(shard.getUser(), closed);
+        return closed;
+    }
+
+    private static UserShard loaded(CompletableFuture<UserShard> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    private static UserShard join(CompletableFuture<UserShard> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Path shardDir(UserContext user) {
+        return user.isDefault() ? Paths.get(dataDir) : Paths.get(dataDir, "users", user.getUserId());
+    }
+
+    // Saves a shard already taken out of the map. Anyone loading the same user
+    // waits on the closing future, so files are never read mid-save. If the save
+    // fails the shard goes back into the map rather than losing its changes.
+    private void evict(UserShard shard, CompletableFuture<UserShard> closed) {
+        boolean saved = shard.close();
+        UserContext user = shard.getUser();
+        synchronized (shards) {
+            closing.remove(user, closed);
+            if (!saved && !shards.containsKey(user)) {
+                shards.put(user, CompletableFuture.completedFuture(shard));
+            }
+        }
+        closed.complete(saved ? null : shard);
+        if (saved) {
+            evictionListeners.forEach(listener -> listener.accept(user));
+        }
+    }
+
+    private void evictIdleShards() {
+        long cutoff = System.currentTimeMillis() - properties.getUsers().getIdleEvictMs();
+        Map<UserShard, CompletableFuture<UserShard>> idle = new LinkedHashMap<>();
+        synchronized (shards) {
+            Iterator<CompletableFuture<UserShard>> it = shards.values().iterator();
+            while (it.hasNext()) {
+                UserShard shard = loaded(it.next());
+                if (shard != null && shard.getLastAccess() < cutoff) {
+                    it.remove();
+                    idle.put(shard, startClosing(shard));
+                }
+            }
         }
+        idle.forEach(this::evict);
     }
 
-    public void saveUserProfile() {
+    private void compactShards() {
+        for (UserShard shard : activeShards()) {
+            try {
+                shard.compactIfNeeded();
+            } catch (UncheckedIOException e) {
+                // Left for the next run; one failing user must not stop the schedule
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Totals over the users currently in memory, for metrics gauges
+    public long getActiveLoggedDays() {
+        long days = 0;
+        for (UserShard shard : activeShards()) {
+            days += shard.getLogStore().loggedDays();
+        }
+        return days;
+    }
+
+    public long getActiveUndoDepth() {
+        long depth = 0;
+        for (UserShard shard : activeShards()) {
+            depth += shard.getUndoJournal().undoSize();
+        }
+        return depth;
+    }
+
+    // Loaded shards only; one still being read from disk has nothing to report
+    private List<UserShard> activeShards() {
+        List<UserShard> active = new ArrayList<>();
+        synchronized (shards) {
+            for (CompletableFuture<UserShard> future : shards.values()) {
+                UserShard shard = loaded(future);
+                if (shard != null) {
+                    active.add(shard);
+                }
+            }
+        }
+        return active;
+    }
+
+    // Applies a daily-log change and records it: in the journal when enabled,
+    // otherwise as a daily log save. Returns false if the mutation changed nothing.
+    // Safe to call concurrently; callers order changes to the same day themselves.
+    public boolean applyLogMutation(UserContext user, LogMutation mutation) {
+        while (true) {
+            Boolean applied = shard(user).apply(mutation, logListeners,
+                () -> persist(user, Dataset.DAILY_LOGS));
+            if (applied != null) {
+                return applied;
+            }
+            // Evicted meanwhile; the next shard() call loads it again
+        }
+    }
+
+    // Applies the mutations in order as one batch with a single journal write or
+    // save; returns how many changed the log
+    public int applyLogMutations(UserContext user, List<LogMutation> mutations) {
+        while (true) {
+            Integer applied = shard(user).applyAll(mutations, logListeners,
+                () -> persist(user, Dataset.DAILY_LOGS));
+            if (applied != null) {
+                return applied;
+            }
+        }
+    }
+
+    public void updateUserProfile(UserContext user, Consumer<UserProfile> update) {
+        while (!shard(user).updateProfile(update, () -> persist(user, Dataset.USER_PROFILE))) {
+            // Evicted meanwhile; retry against the reloaded shard
+        }
+    }
+
+    public void addLogListener(LogListener listener) {
+        logListeners.add(listener);
+    }
+
+    // Told after a user's shard has been saved and dropped from memory
+    public void addEvictionListener(Consumer<UserContext> listener) {
+        evictionListeners.add(listener);
+    }
+
+    @PreDestroy
+    public void saveAllData() {
+        persist(null, Dataset.BASIC_FOODS);
+        persist(null, Dataset.COMPOSITE_FOODS);
+        if (flusher != null) {
+            // Forced final flush of everything still queued
+            flusher.shutdown();
+        }
+        maintenance.shutdown();
+        List<CompletableFuture<UserShard>> open;
+        synchronized (shards) {
+            open = new ArrayList<>(shards.values());
+            open.addAll(closing.values());
+            shards.clear();
+        }
+        for (CompletableFuture<UserShard> future : open) {
+            // Waits for loads and eviction saves still running; a failed load has nothing to save
+            UserShard shard = future.exceptionally(e -> null).join();
+            if (shard != null && !shard.close()) {
+                System.out.println("Could not save the data of user " + shard.getUser().getUserId());
+            }
+        }
+    }
+
+    public void saveBasicFoods() {
+        persist(null, Dataset.BASIC_FOODS);
+    }
+
+    public void saveCompositeFoods() {
+        persist(null, Dataset.COMPOSITE_FOODS);
+    }
+
+    public void flush() {
+        if (flusher != null) {
+            flusher.flushDirty();
+        }
+    }
+
+    private void persist(UserContext user, Dataset dataset) {
+        PendingWrite write = new PendingWrite(user, dataset);
+        if (flusher != null) {
+            flusher.markDirty(write);
+            return;
+        }
         try {
-            mapper.writeValue(new File(DATA_DIR + "userProfile.json"), userProfile);
-        } catch (Exception e) {
+            writePending(write);
+        } catch (UncheckedIOException e) {
+            // Synchronous saves rewrite the whole dataset, so the next one catches up
             e.printStackTrace();
         }
     }
+
+    private void writePending(PendingWrite write) {
+        if (!write.dataset().isPerUser()) {
+            writeCatalog(write.dataset());
+            return;
+        }
+        UserShard shard;
+        synchronized (shards) {
+            CompletableFuture<UserShard> future = shards.get(write.user());
+            shard = future == null ? null : loaded(future);
+        }
+        // An evicted shard was saved on its way out
+        if (shard != null) {
+            shard.write(write.dataset(), false);
+        }
+    }
+
+    private void writeCatalog(Dataset dataset) {
+        long start = System.nanoTime();
+        Path path = dataPath(dataset);
+        synchronized (AtomicFileStore.lockFor(path)) {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                // Serialize under the storage monitor; services mutate the collections
+                // inside synchronized (storage) blocks
+                synchronized (this) {
+                    if (dataset == Dataset.BASIC_FOODS) {
+                        backend.writeBasicFoods(out, basicFoods);
+                    } else {
+                        backend.writeCompositeFoods(out, compositeFoods);
+                    }
+                }
+                byte[] bytes = out.toByteArray();
+                AtomicFileStore.write(path, bytes);
+                metrics.recordFlush(System.nanoTime() - start, bytes.length);
+            } catch (IOException e) {
+                // Rethrown so write-behind keeps the catalog dirty and retries it
+                throw new UncheckedIOException("Could not save " + path, e);
+            }
+        }
+    }
+
+    private Path dataPath(Dataset dataset) {
+        return Paths.get(dataDir, dataset.fileName(backend));
+    }
+
     // Getters and setters for all data fields
     public List<BasicFood> getBasicFoods() { return basicFoods; }
     public List<CompositeFood> getCompositeFoods() { return compositeFoods; }
-    public DailyLog getDailyLog() { return dailyLog; }
-    public UserProfile getUserProfile() { return userProfile; }
-}
\ No newline at end of file
+    // Materialized copy of the user's log; mutate through applyLogMutation
+    public DailyLog getDailyLog(UserContext user) { return shard(user).getLogStore().snapshot(); }
+    public LogStore getLogStore(UserContext user) { return shard(user).getLogStore(); }
+    // Lives with the user's shard, so it is saved with the log and survives restarts
+    public UndoJournal getUndoJournal(UserContext user) { return shard(user).getUndoJournal(); }
+    // Live profile; change it through updateUserProfile
+    public UserProfile getUserProfile(UserContext user) { return shard(user).getUserProfile(); }
+    public int getActiveUserCount() { synchronized (shards) { return shards.size(); } }
+    public FoodIndex getFoodIndex() { return foodIndex; }
+    public StorageMetrics getMetrics() { return metrics; }
+}
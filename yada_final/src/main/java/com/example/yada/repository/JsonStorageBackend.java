@@ -0,0 +1,72 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+public class JsonStorageBackend implements StorageBackend {
+    private final ObjectMapper mapper = createMapper();
+    private final StreamingJsonLoader loader = new StreamingJsonLoader(mapper);
+
+    static ObjectMapper createMapper() {
+        return new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Override
+    public String extension() {
+        return ".json";
+    }
+
+    @Override
+    public void readBasicFoods(InputStream in, Consumer<BasicFood> sink) throws IOException {
+        loader.readArray(in, BasicFood.class, sink);
+    }
+
+    @Override
+    public void readCompositeFoods(InputStream in, Consumer<CompositeFood> sink) throws IOException {
+        loader.readArray(in, CompositeFood.class, sink);
+    }
+
+    @Override
+    public DailyLog readDailyLog(InputStream in, LocalDate from, LocalDate to) throws IOException {
+        return loader.readDailyLog(in, from, to);
+    }
+
+    @Override
+    public UserProfile readUserProfile(InputStream in) throws IOException {
+        return mapper.readValue(in, UserProfile.class);
+    }
+
+    @Override
+    public void writeBasicFoods(OutputStream out, List<BasicFood> foods) throws IOException {
+        mapper.writeValue(out, foods);
+    }
+
+    @Override
+    public void writeCompositeFoods(OutputStream out, List<CompositeFood> foods) throws IOException {
+        mapper.writeValue(out, foods);
+    }
+
+    @Override
+    public void writeDailyLog(OutputStream out, DailyLog log) throws IOException {
+        mapper.writeValue(out, log);
+    }
+
+    @Override
+    public void writeUserProfile(OutputStream out, UserProfile profile) throws IOException {
+        mapper.writeValue(out, profile);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.yada.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Inverted index from normalized keywords/ids to foods, with a 1-3 char gram
+// index over the distinct terms so substring queries don't scan the catalog.
+// Postings are kept compact (a lone food is stored unwrapped, gram lists are
+// plain arrays) because catalogs run to millions of mostly-unique ids.
+public class KeywordIndex<T> {
+    private static final int GRAM = 3;
+
+    private final Function<T, String> idOf;
+    private final Function<T, List<String>> keywordsOf;
+    private final Map<T, Long> ordinals = new IdentityHashMap<>();
+    // term -> T, or ArrayList<T> when several foods share the term
+    private final Map<String, Object> postings = new HashMap<>();
+    private final Map<String, TermList> grams = new HashMap<>();
+    private long nextOrdinal;
+
+    public KeywordIndex(Function<T, String> idOf, Function<T, List<String>> keywordsOf) {
+        this.idOf = idOf;
+        this.keywordsOf = keywordsOf;
+    }
+
+    public static String normalize(String term) {
+        return term.toLowerCase(Locale.ROOT);
+    }
+
+    public void clear() {
+        ordinals.clear();
+        postings.clear();
+        grams.clear();
+        nextOrdinal = 0;
+    }
+
+    public void add(T food) {
+        if (ordinals.containsKey(food)) {
+            return;
+        }
+        ordinals.put(food, nextOrdinal++);
+        for (String term : termsOf(food)) {
+            Object current = postings.get(term);
+            if (current == null) {
+                postings.put(term, food);
+                indexGrams(term);
+            } else if (current instanceof ArrayList<?> list) {
+                @SuppressWarnings("unchecked")
+                List<T> foods = (List<T>) list;
+                foods.add(food);
+            } else {
+                List<Object> foods = new ArrayList<>(2);
+                foods.add(current);
+                foods.add(food);
+                postings.put(term, foods);
+            }
+        }
+    }
+
+    // Removes every food indexed under the id (the catalog lists allow duplicates)
+    public void removeById(String id) {
+        if (id == null) {
+            return;
+        }
+        String key = FoodIndex.key(id);
+        // Every food with this id is in the posting of its own normalized id
+        List<T> foods = new ArrayList<>();
+        for (T food : foodsFor(key)) {
+            if (key.equals(FoodIndex.key(idOf.apply(food)))) {
+                foods.add(food);
+            }
+        }
+        for (T food : foods) {
+            ordinals.remove(food);
+            for (String term : termsOf(food)) {
+                removePosting(term, food);
+            }
+        }
+    }
+
+    // Same semantics as matching each keyword/id with String.contains, in catalog order
+    public List<T> search(String normalizedTerm) {
+        Set<T> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        TermList candidates = candidateTerms(normalizedTerm);
+        for (int i = 0; i < candidates.size; i++) {
+            String term = candidates.terms[i];
+            if (term.contains(normalizedTerm)) {
+                matches.addAll(foodsFor(term));
+            }
+        }
+        List<T> result = new ArrayList<>(matches);
+        result.sort(Comparator.comparingLong(ordinals::get));
+        return result;
+    }
+
+    private TermList candidateTerms(String query) {
+        if (query.length() <= GRAM) {
+            return grams.getOrDefault(query, TermList.EMPTY);
+        }
+        // Every match contains all of the query's trigrams; verify against the rarest
+        TermList smallest = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            TermList candidates = grams.get(query.substring(i, i + GRAM));
+            if (candidates == null) {
+                return TermList.EMPTY;
+            }
+            if (smallest == null || candidates.size < smallest.size) {
+                smallest = candidates;
+            }
+        }
+        return smallest;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> foodsFor(String term) {
+        Object current = postings.get(term);
+        if (current == null) {
+            return Collections.emptyList();
+        }
+        return current instanceof ArrayList<?> list ? (List<T>) list : List.of((T) current);
+    }
+
+    private void removePosting(String term, T food) {
+        Object current = postings.get(term);
+        if (current == food) {
+            postings.remove(term);
+            unindexGrams(term);
+        } else if (current instanceof ArrayList<?> list) {
+            list.removeIf(f -> f == food);
+            if (list.size() == 1) {
+                postings.put(term, list.get(0));
+            }
+        }
+    }
+
+    private Set<String> termsOf(T food) {
+        Set<String> terms = new LinkedHashSet<>();
+        String id = idOf.apply(food);
+        if (id != null) {
+            terms.add(normalize(id));
+        }
+        List<String> keywords = keywordsOf.apply(food);
+        if (keywords != null) {
+            for (String keyword : keywords) {
+                if (keyword != null) {
+                    terms.add(normalize(keyword));
+                }
+            }
+        }
+        return terms;
+    }
+
+    private void indexGrams(String term) {
+        for (String gram : gramsOf(term)) {
+            grams.computeIfAbsent(gram, g -> new TermList()).add(term);
+        }
+    }
+
+    private void unindexGrams(String term) {
+        for (String gram : gramsOf(term)) {
+            TermList terms = grams.get(gram);
+            if (terms != null && terms.remove(term) && terms.size == 0) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> gramsOf(String term) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int length = 1; length <= GRAM; length++) {
+            for (int i = 0; i + length <= term.length(); i++) {
+                result.add(term.substring(i, i + length));
+            }
+        }
+        return result;
+    }
+
+    // Growable array of distinct terms; removal is a swap with the last slot
+    private static final class TermList {
+        static final TermList EMPTY = new TermList();
+
+        String[] terms = new String[2];
+        int size;
+
+        void add(String term) {
+            if (size == terms.length) {
+                terms = Arrays.copyOf(terms, size * 2);
+            }
+            terms[size++] = term;
+        }
+
+        boolean remove(String term) {
+            for (int i = 0; i < size; i++) {
+                if (terms[i].equals(term)) {
+                    terms[i] = terms[--size];
+                    terms[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.yada.repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Append-only journal of daily-log mutations, one JSON record per line.
+// Compaction rotates the active file aside, snapshots dailyLogs.json and then
+// drops the rotated file; records carry a sequence number so replay skips
+// anything the snapshot already contains. A batch sits between BEGIN and
+// COMMIT records and replays whole or not at all.
+class LogJournal implements Closeable {
+    private static final int BATCH_CHUNK = 1 << 16;
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final ObjectMapper mapper;
+    private final int fsyncBatchSize;
+    private FileChannel channel;
+    private long sequence;
+    private int unsynced;
+    private long records;
+
+    LogJournal(Path path, ObjectMapper mapper, int fsyncBatchSize) {
+        this.path = path;
+        this.rotatedPath = path.resolveSibling(path.getFileName() + ".1");
+        this.mapper = mapper;
+        this.fsyncBatchSize = Math.max(1, fsyncBatchSize);
+    }
+
+    // Replays records newer than the snapshot, then opens the journal for appends
+    synchronized void open(long snapshotSequence, Consumer<LogMutation> consumer) throws IOException {
+        sequence = snapshotSequence;
+        replayFile(rotatedPath, consumer, true);
+        replayFile(path, consumer, true);
+        channel = openChannel();
+    }
+
+    // Replays like open() but leaves the files untouched, for offline readers;
+    // returns the sequence of the last record applied
+    synchronized long replay(long snapshotSequence, Consumer<LogMutation> consumer) throws IOException {
+        sequence = snapshotSequence;
+        replayFile(rotatedPath, consumer, false);
+        replayFile(path, consumer, false);
+        return sequence;
+    }
+
+    boolean exists() {
+        return Files.exists(path) || Files.exists(rotatedPath);
+    }
+
+    // Renames both files to <name><suffix>, for a journal that is never appended to again
+    synchronized void retire(String suffix) throws IOException {
+        for (Path file : new Path[] { rotatedPath, path }) {
+            if (Files.exists(file)) {
+                Files.move(file, file.resolveSibling(file.getFileName() + suffix),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+    }
+
+    // Applies the intact prefix of the file and cuts off anything after it, so
+    // the next append starts on a fresh line instead of extending a torn one
+    private void replayFile(Path file, Consumer<LogMutation> consumer, boolean repair) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        long intact = 0;
+        long offset = 0;
+        // Records of an open batch, held back until its COMMIT
+        List<LogMutation> batch = null;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String record = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (!record.isBlank()) {
+                    LogMutation mutation;
+                    try {
+                        mutation = mapper.readValue(record, LogMutation.class);
+                    } catch (IOException e) {
+                        System.out.println("Ignoring damaged journal record in " + file.getFileName());
+                        break;
+                    }
+                    switch (mutation.getOp()) {
+                        case BEGIN -> batch = new ArrayList<>();
+                        case COMMIT -> {
+                            if (batch != null) {
+                                batch.forEach(committed -> replay(committed, consumer));
+                                batch = null;
+                            }
+                        }
+                        default -> {
+                            if (batch != null) {
+                                batch.add(mutation);
+                            } else {
+                                replay(mutation, consumer);
+                            }
+                        }
+                    }
+                }
+                if (batch == null) {
+                    intact = offset;
+                }
+            }
+        }
+        if (batch != null) {
+            System.out.println("Dropping uncommitted batch of " + batch.size() + " record(s) in " + file.getFileName());
+        }
+        // A record without its newline is torn too; nothing after it was acknowledged
+        if (repair && intact < Files.size(file)) {
+            try (FileChannel truncating = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncating.truncate(intact);
+                truncating.force(false);
+            }
+        }
+    }
+
+    private void replay(LogMutation mutation, Consumer<LogMutation> consumer) {
+        if (mutation.getSequence() > sequence) {
+            consumer.accept(mutation);
+            sequence = mutation.getSequence();
+            records++;
+        }
+    }
+
+    synchronized void append(LogMutation mutation) throws IOException {
+        mutation.setSequence(sequence + 1);
+        byte[] line = mapper.writeValueAsBytes(mutation);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1);
+        buffer.put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        sequence++;
+        records++;
+        if (++unsynced >= fsyncBatchSize) {
+            sync();
+        }
+    }
+
+    // Chunked writes and at most one fsync for the whole batch. Replay ignores
+    // the records unless the COMMIT after them made it to disk.
+    synchronized void appendAll(List<LogMutation> mutations) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        long start = channel.size();
+        long firstSequence = sequence;
+        try {
+            writeMarker(lines, LogMutation.Op.BEGIN);
+            for (LogMutation mutation : mutations) {
+                mutation.setSequence(++sequence);
+                mapper.writeValue(lines, mutation);
+                lines.write('\n');
+                if (lines.size() >= BATCH_CHUNK) {
+                    writeFully(lines);
+                }
+            }
+            writeMarker(lines, LogMutation.Op.COMMIT);
+            writeFully(lines);
+        } catch (IOException e) {
+            // Later appends must not land inside an open batch, where replay would drop them
+            sequence = firstSequence;
+            channel.truncate(start);
+            throw e;
+        }
+        records += mutations.size();
+        unsynced += mutations.size();
+        if (unsynced >= fsyncBatchSize) {
+            sync();
+        }
+    }
+
+    private void writeMarker(ByteArrayOutputStream lines, LogMutation.Op op) throws IOException {
+        mapper.writeValue(lines, new LogMutation(0, op, null, null, 0));
+        lines.write('\n');
+    }
+
+    private void writeFully(ByteArrayOutputStream lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lines.reset();
+    }
+
+    synchronized void sync() throws IOException {
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    // Moves the active file aside so a snapshot can be written without blocking appends
+    synchronized long rotate() throws IOException {
+        sync();
+        channel.close();
+        if (Files.exists(rotatedPath)) {
+            // A previous compaction never finished; keep its records ahead of ours
+            Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+            Files.delete(path);
+        } else {
+            Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+        channel = openChannel();
+        records = 0;
+        return sequence;
+    }
+
+    void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    synchronized long getSequence() {
+        return sequence;
+    }
+
+    synchronized long getRecordCount() {
+        return records;
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+}
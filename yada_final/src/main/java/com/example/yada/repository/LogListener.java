@@ -0,0 +1,17 @@
+package com.example.yada.repository;
+
+import java.util.List;
+
+import com.example.yada.model.UserContext;
+
+// Told about each daily-log mutation that changed a user's log, possibly from
+// several threads at once. store is the user's store the mutation went into.
+@FunctionalInterface
+public interface LogListener {
+    void onMutation(UserContext user, LogStore store, LogMutation mutation);
+
+    // A batch applied in one step; listeners that can catch up in one pass override this
+    default void onBatch(UserContext user, LogStore store, List<LogMutation> mutations) {
+        mutations.forEach(mutation -> onMutation(user, store, mutation));
+    }
+}
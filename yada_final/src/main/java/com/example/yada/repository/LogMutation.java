@@ -0,0 +1,34 @@
+package com.example.yada.repository;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One daily-log change, as appended to the journal
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LogMutation {
+    // BEGIN and COMMIT only frame batches inside the journal; they are never applied
+    public enum Op { ADD, REMOVE, CLEAR, BEGIN, COMMIT }
+
+    private long sequence;
+    private Op op;
+    private LocalDate date;
+    private String foodId;
+    private double servings;
+
+    public static LogMutation add(LocalDate date, String foodId, double servings) {
+        return new LogMutation(0, Op.ADD, date, foodId, servings);
+    }
+
+    public static LogMutation remove(LocalDate date, String foodId, double servings) {
+        return new LogMutation(0, Op.REMOVE, date, foodId, servings);
+    }
+
+    public static LogMutation clear(LocalDate date) {
+        return new LogMutation(0, Op.CLEAR, date, null, 0);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.yada.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.LogEntry;
+
+// Where daily log entries live. Mutations arrive as LogMutations so every
+// implementation shares the journal/undo vocabulary.
+public interface LogStore extends Closeable {
+    // Primitive view of one entry; foodOrdinal resolves through foodId(int)
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(int epochDay, int foodOrdinal, double servings);
+    }
+
+    // Returns false if the mutation changed nothing
+    boolean apply(LogMutation mutation);
+
+    // Applies mutations in order; returns how many changed something
+    default int applyAll(List<LogMutation> mutations) {
+        int applied = 0;
+        for (LogMutation mutation : mutations) {
+            if (apply(mutation)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    // Copy of the day's entries in logging order
+    List<LogEntry> entries(LocalDate date);
+
+    default boolean hasEntries(LocalDate date) {
+        return !entries(date).isEmpty();
+    }
+
+    // Visits each day in [from, to] that has entries, in date order
+    void forEachDay(LocalDate from, LocalDate to, BiConsumer<LocalDate, List<LogEntry>> visitor);
+
+    // Visits each entry in [from, to] without materializing LogEntry objects.
+    // Entries of a day come in logging order; day order is up to the store.
+    void forEachEntry(LocalDate from, LocalDate to, EntryVisitor visitor);
+
+    String foodId(int foodOrdinal);
+
+    // Upper bound (exclusive) of the ordinals forEachEntry can report
+    int foodCount();
+
+    List<LocalDate> datesWithLogs();
+
+    int loggedDays();
+
+    // Whole history as a DailyLog, for snapshots and format conversion
+    DailyLog snapshot();
+
+    // Makes applied mutations durable, where the store persists itself
+    void flush() throws IOException;
+}
@@ -0,0 +1,442 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.LogEntry;
+
+// Daily log entries partitioned by month into fixed-size record files, accessed
+// through MappedByteBuffer. A day read or an append only touches that month's
+// segment, and only a handful of segments are mapped at a time, so heap use
+// does not grow with the length of the history.
+//
+// Segment layout: 16-byte header (magic, record count), then 16-byte records of
+// (int epochDay, int foodOrdinal, double servings). Removed records keep their
+// slot with foodOrdinal = -1 until at least half of a segment's records are
+// removed; the live ones are then copied, in order, into a fresh file that
+// replaces the segment, so undo/redo churn doesn't grow segments without bound.
+//
+// The logged days of every month are kept on heap as small bitsets (built by
+// one scan at open), so counts, date listings and range walks only visit
+// months that actually have entries.
+public class MappedLogStore implements LogStore {
+    private static final int MAGIC = 0x59414C47; // "YALG"
+    private static final int HEADER = 16;
+    private static final int RECORD = 16;
+    private static final int COUNT_OFFSET = 4;
+    private static final int INITIAL_RECORDS = 256;
+    private static final int REMOVED = -1;
+    // Fewer removed records than this are never worth rewriting a segment for
+    private static final int COMPACT_MIN_REMOVED = 64;
+    private static final String SUFFIX = ".seg";
+
+    private final Path dir;
+    private final FoodIdTable foodIds;
+    private final int maxOpenSegments;
+    private final Map<YearMonth, Segment> segments;
+    private final NavigableMap<YearMonth, BitSet> liveDays = new TreeMap<>();
+    private int loggedDays;
+
+    public MappedLogStore(Path dir, int maxOpenSegments) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        this.foodIds = new FoodIdTable(dir.resolve("foods.ids"));
+        this.maxOpenSegments = Math.max(1, maxOpenSegments);
+        this.segments = new LinkedHashMap<>(16, 0.75f, true);
+        for (YearMonth month : months()) {
+            BitSet days = segment(month, false).liveDays();
+            liveDays.put(month, days);
+            loggedDays += days.cardinality();
+        }
+    }
+
+    @Override
+    public synchronized boolean apply(LogMutation mutation) {
+        if (!applyToSegment(mutation)) {
+            return false;
+        }
+        YearMonth month = YearMonth.from(mutation.getDate());
+        BitSet days = liveDays.computeIfAbsent(month, m -> new BitSet());
+        int before = days.cardinality();
+        if (mutation.getOp() == LogMutation.Op.ADD) {
+            days.set(mutation.getDate().getDayOfMonth());
+        } else {
+            // A removal may or may not have emptied its day; rescan the month
+            days.clear();
+            days.or(segment(month, false).liveDays());
+        }
+        loggedDays += days.cardinality() - before;
+        return true;
+    }
+
+    private boolean applyToSegment(LogMutation mutation) {
+        LocalDate date = mutation.getDate();
+        int day = (int) date.toEpochDay();
+        switch (mutation.getOp()) {
+            case ADD -> {
+                segment(date, true).append(day, foodIds.ordinal(mutation.getFoodId()), mutation.getServings());
+                return true;
+            }
+            case REMOVE -> {
+                Segment segment = segment(date, false);
+                int ordinal = foodIds.find(mutation.getFoodId());
+                if (segment == null || ordinal < 0 || !segment.removeFirst(day, ordinal, mutation.getServings())) {
+                    return false;
+                }
+                segment.compactIfSparse();
+                return true;
+            }
+            case CLEAR -> {
+                Segment segment = segment(date, false);
+                if (segment == null || !segment.clear(day)) {
+                    return false;
+                }
+                segment.compactIfSparse();
+                return true;
+            }
+            default -> throw new IllegalStateException("Unknown log mutation " + mutation.getOp());
+        }
+    }
+
+    @Override
+    public synchronized List<LogEntry> entries(LocalDate date) {
+        List<LogEntry> entries = new ArrayList<>();
+        Segment segment = segment(date, false);
+        if (segment != null) {
+            segment.read((int) date.toEpochDay(), entries);
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void forEachDay(LocalDate from, LocalDate to, BiConsumer<LocalDate, List<LogEntry>> visitor) {
+        for (YearMonth month : loggedMonths(from, to)) {
+            Map<Integer, List<LogEntry>> days = new TreeMap<>();
+            segment(month, false).readAll(days);
+            for (Map.Entry<Integer, List<LogEntry>> day : days.entrySet()) {
+                LocalDate date = LocalDate.ofEpochDay(day.getKey());
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    visitor.accept(date, day.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void forEachEntry(LocalDate from, LocalDate to, EntryVisitor visitor) {
+        int first = ColumnarLogStore.epochDay(from);
+        int last = ColumnarLogStore.epochDay(to);
+        for (YearMonth month : loggedMonths(from, to)) {
+            segment(month, false).visit(first, last, visitor);
+        }
+    }
+
+    @Override
+    public synchronized String foodId(int foodOrdinal) {
+        return foodIds.id(foodOrdinal);
+    }
+
+    @Override
+    public synchronized int foodCount() {
+        return foodIds.size();
+    }
+
+    @Override
+    public synchronized List<LocalDate> datesWithLogs() {
+        List<LocalDate> dates = new ArrayList<>(loggedDays);
+        liveDays.forEach((month, days) -> {
+            for (int d = days.nextSetBit(0); d >= 0; d = days.nextSetBit(d + 1)) {
+                dates.add(month.atDay(d));
+            }
+        });
+        return dates;
+    }
+
+    @Override
+    public synchronized int loggedDays() {
+        return loggedDays;
+    }
+
+    @Override
+    public synchronized DailyLog snapshot() {
+        DailyLog log = new DailyLog();
+        forEachDay(LocalDate.MIN, LocalDate.MAX, log.getEntries()::put);
+        return log;
+    }
+
+    @Override
+    public synchronized void flush() {
+        segments.values().forEach(Segment::force);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        foodIds.close();
+    }
+
+    private List<YearMonth> loggedMonths(LocalDate from, LocalDate to) {
+        List<YearMonth> months = new ArrayList<>();
+        liveDays.subMap(YearMonth.from(from), true, YearMonth.from(to), true).forEach((month, days) -> {
+            if (!days.isEmpty()) {
+                months.add(month);
+            }
+        });
+        return months;
+    }
+
+    private List<YearMonth> months() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                .filter(name -> name.endsWith(SUFFIX))
+                .map(name -> YearMonth.parse(name.substring(0, name.length() - SUFFIX.length())))
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Segment segment(LocalDate date, boolean create) {
+        return segment(YearMonth.from(date), create);
+    }
+
+    private Segment segment(YearMonth month, boolean create) {
+        Segment segment = segments.get(month);
+        if (segment != null) {
+            return segment;
+        }
+        Path file = dir.resolve(month + SUFFIX);
+        if (!create && !Files.exists(file)) {
+            return null;
+        }
+        try {
+            segment = new Segment(month, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open log segment " + file.getFileName(), e);
+        }
+        segments.put(month, segment);
+        // Keep only the most recently used segments mapped
+        if (segments.size() > maxOpenSegments) {
+            Iterator<Segment> eldest = segments.values().iterator();
+            eldest.next().close();
+            eldest.remove();
+        }
+        return segment;
+    }
+
+    private final class Segment {
+        private final YearMonth month;
+        private final Path file;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int count;
+        // Records among count that are tombstones
+        private int removed;
+
+        Segment(YearMonth month, Path file) throws IOException {
+            this.month = month;
+            this.file = file;
+            boolean exists = Files.exists(file);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            if (exists) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                if (buffer.getInt(0) != MAGIC) {
+                    throw new IOException("Not a log segment");
+                }
+                count = buffer.getInt(COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    if (buffer.getInt(HEADER + i * RECORD + 4) == REMOVED) {
+                        removed++;
+                    }
+                }
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) INITIAL_RECORDS * RECORD);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(COUNT_OFFSET, 0);
+            }
+        }
+
+        void append(int day, int ordinal, double servings) {
+            int position = HEADER + count * RECORD;
+            if (position + RECORD > buffer.capacity()) {
+                grow();
+            }
+            buffer.putInt(position, day);
+            buffer.putInt(position + 4, ordinal);
+            buffer.putDouble(position + 8, servings);
+            // Record first, then the count, so a torn append is simply not visible
+            buffer.putInt(COUNT_OFFSET, ++count);
+        }
+
+        private void grow() {
+            try {
+                buffer.force();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) buffer.capacity() * 2 - HEADER);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow log segment " + month, e);
+            }
+        }
+
+        boolean removeFirst(int day, int ordinal, double servings) {
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                if (buffer.getInt(position) == day && buffer.getInt(position + 4) == ordinal
+                        && Double.compare(buffer.getDouble(position + 8), servings) == 0) {
+                    buffer.putInt(position + 4, REMOVED);
+                    removed++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean clear(int day) {
+            boolean cleared = false;
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                if (buffer.getInt(position) == day && buffer.getInt(position + 4) != REMOVED) {
+                    buffer.putInt(position + 4, REMOVED);
+                    removed++;
+                    cleared = true;
+                }
+            }
+            return cleared;
+        }
+
+        void compactIfSparse() {
+            if (removed >= COMPACT_MIN_REMOVED && removed * 2 >= count) {
+                compact();
+            }
+        }
+
+        // Writes the live records to a temp file and renames it over the segment,
+        // so a crash leaves either the old segment or the compacted one. If that
+        // fails the tombstones simply stay until the next attempt.
+        private void compact() {
+            int live = count - removed;
+            long capacity = INITIAL_RECORDS;
+            while (capacity < live) {
+                capacity *= 2;
+            }
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + capacity * RECORD);
+                    target.putInt(0, MAGIC);
+                    int kept = 0;
+                    for (int i = 0; i < count; i++) {
+                        int position = HEADER + i * RECORD;
+                        if (buffer.getInt(position + 4) != REMOVED) {
+                            target.put(HEADER + kept * RECORD, buffer, position, RECORD);
+                            kept++;
+                        }
+                    }
+                    target.putInt(COUNT_OFFSET, kept);
+                    target.force();
+                }
+                buffer.force();
+                channel.close();
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    // The compacted file if the move went through, the original otherwise
+                    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    count = buffer.getInt(COUNT_OFFSET);
+                }
+                removed = 0;
+            } catch (IOException e) {
+                System.out.println("Could not compact log segment " + month + ": " + e.getMessage());
+            }
+        }
+
+        void read(int day, List<LogEntry> into) {
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                if (buffer.getInt(position) == day) {
+                    addLive(position, into);
+                }
+            }
+        }
+
+        void readAll(Map<Integer, List<LogEntry>> into) {
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                if (buffer.getInt(position + 4) != REMOVED) {
+                    addLive(position, into.computeIfAbsent(buffer.getInt(position), d -> new ArrayList<>()));
+                }
+            }
+        }
+
+        void visit(int first, int last, EntryVisitor visitor) {
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                int day = buffer.getInt(position);
+                int ordinal = buffer.getInt(position + 4);
+                if (ordinal != REMOVED && day >= first && day <= last) {
+                    visitor.visit(day, ordinal, buffer.getDouble(position + 8));
+                }
+            }
+        }
+
+        BitSet liveDays() {
+            BitSet days = new BitSet(32);
+            int first = (int) month.atDay(1).toEpochDay();
+            for (int i = 0; i < count; i++) {
+                int position = HEADER + i * RECORD;
+                if (buffer.getInt(position + 4) != REMOVED) {
+                    days.set(buffer.getInt(position) - first + 1);
+                }
+            }
+            return days;
+        }
+
+        private void addLive(int position, List<LogEntry> into) {
+            int ordinal = buffer.getInt(position + 4);
+            if (ordinal != REMOVED) {
+                LogEntry entry = new LogEntry();
+                entry.setFoodId(foodIds.id(ordinal));
+                entry.setServings(buffer.getDouble(position + 8));
+                into.add(entry);
+            }
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserProfile;
+
+// On-disk encoding of the datasets. JsonDataStorage owns file handling
+// (atomic writes, checksums, fallback); a backend only maps streams to objects.
+public interface StorageBackend {
+    String extension();
+
+    void readBasicFoods(InputStream in, Consumer<BasicFood> sink) throws IOException;
+
+    void readCompositeFoods(InputStream in, Consumer<CompositeFood> sink) throws IOException;
+
+    // from/to are inclusive; null leaves that side open
+    DailyLog readDailyLog(InputStream in, LocalDate from, LocalDate to) throws IOException;
+
+    UserProfile readUserProfile(InputStream in) throws IOException;
+
+    void writeBasicFoods(OutputStream out, List<BasicFood> foods) throws IOException;
+
+    void writeCompositeFoods(OutputStream out, List<CompositeFood> foods) throws IOException;
+
+    void writeDailyLog(OutputStream out, DailyLog log) throws IOException;
+
+    void writeUserProfile(OutputStream out, UserProfile profile) throws IOException;
+
+    static StorageBackend forFormat(String format) {
+        return switch (format.toLowerCase()) {
+            case "json" -> new JsonStorageBackend();
+            case "binary" -> new BinaryStorageBackend();
+            default -> throw new IllegalArgumentException("Unknown storage format '" + format + "'");
+        };
+    }
+}
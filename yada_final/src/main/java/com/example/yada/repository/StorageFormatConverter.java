@@ -0,0 +1,129 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Lossless conversion of a data directory between storage formats. Daily log
+// entries still in a journal or in mapped month segments are folded into the
+// converted snapshot.
+// Usage: StorageFormatConverter <sourceDir> <json|binary> <targetDir> <json|binary>
+public final class StorageFormatConverter {
+    private static final ObjectMapper MAPPER = JsonStorageBackend.createMapper();
+
+    private StorageFormatConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.out.println("Usage: StorageFormatConverter <sourceDir> <json|binary> <targetDir> <json|binary>");
+            return;
+        }
+        convert(Paths.get(args[0]), StorageBackend.forFormat(args[1]),
+                Paths.get(args[2]), StorageBackend.forFormat(args[3]));
+    }
+
+    public static void convert(Path sourceDir, StorageBackend source,
+                               Path targetDir, StorageBackend target) throws IOException {
+        Files.createDirectories(targetDir);
+
+        List<BasicFood> basicFoods = AtomicFileStore.read(path(sourceDir, Dataset.BASIC_FOODS, source), in -> {
+            List<BasicFood> foods = new ArrayList<>();
+            source.readBasicFoods(in, foods::add);
+            return foods;
+        });
+        if (basicFoods != null) {
+            AtomicFileStore.write(path(targetDir, Dataset.BASIC_FOODS, target),
+                out -> target.writeBasicFoods(out, basicFoods));
+        }
+
+        List<CompositeFood> compositeFoods = AtomicFileStore.read(path(sourceDir, Dataset.COMPOSITE_FOODS, source), in -> {
+            List<CompositeFood> foods = new ArrayList<>();
+            source.readCompositeFoods(in, foods::add);
+            return foods;
+        });
+        if (compositeFoods != null) {
+            AtomicFileStore.write(path(targetDir, Dataset.COMPOSITE_FOODS, target),
+                out -> target.writeCompositeFoods(out, compositeFoods));
+        }
+
+        convertUser(sourceDir, source, targetDir, target);
+        // Every other user's shard lives in its own users/<id> directory
+        Path users = sourceDir.resolve("users");
+        if (Files.isDirectory(users)) {
+            try (Stream<Path> dirs = Files.list(users)) {
+                for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                    Path targetUser = targetDir.resolve("users").resolve(dir.getFileName().toString());
+                    Files.createDirectories(targetUser);
+                    convertUser(dir, source, targetUser, target);
+                }
+            }
+        }
+    }
+
+    private static void convertUser(Path sourceDir, StorageBackend source,
+                                    Path targetDir, StorageBackend target) throws IOException {
+        DailyLog dailyLog = readDailyLog(sourceDir, source);
+        if (dailyLog != null) {
+            AtomicFileStore.write(path(targetDir, Dataset.DAILY_LOGS, target),
+                out -> target.writeDailyLog(out, dailyLog));
+        }
+
+        // Undo history has one binary format whatever the storage format
+        byte[] undoHistory = AtomicFileStore.read(sourceDir.resolve(UserShard.UNDO_FILE), InputStream::readAllBytes);
+        if (undoHistory != null) {
+            AtomicFileStore.write(targetDir.resolve(UserShard.UNDO_FILE), out -> out.write(undoHistory));
+        }
+
+        UserProfile profile = AtomicFileStore.read(path(sourceDir, Dataset.USER_PROFILE, source),
+            source::readUserProfile);
+        if (profile != null) {
+            AtomicFileStore.write(path(targetDir, Dataset.USER_PROFILE, target),
+                out -> target.writeUserProfile(out, profile));
+        }
+    }
+
+    // Mapped month segments, unless a snapshot or journal is still there: the shard
+    // treats those as newer and migrates them into the segments on its next start.
+    // Journal records not yet compacted are folded into the snapshot.
+    private static DailyLog readDailyLog(Path dir, StorageBackend backend) throws IOException {
+        Path snapshotPath = path(dir, Dataset.DAILY_LOGS, backend);
+        LogJournal journal = new LogJournal(dir.resolve(UserShard.JOURNAL_FILE), MAPPER, 1);
+        Path segments = dir.resolve(UserShard.LOG_SEGMENT_DIR);
+        if (!AtomicFileStore.exists(snapshotPath) && !journal.exists() && Files.isDirectory(segments)) {
+            try (MappedLogStore store = new MappedLogStore(segments, 1)) {
+                return store.snapshot();
+            }
+        }
+        DailyLog snapshot = AtomicFileStore.read(snapshotPath, in -> backend.readDailyLog(in, null, null));
+        if (!journal.exists()) {
+            return snapshot;
+        }
+        ColumnarLogStore store = new ColumnarLogStore();
+        long snapshotSequence = 0;
+        if (snapshot != null) {
+            snapshot.getEntries().forEach((date, entries) -> entries.forEach(entry ->
+                store.apply(LogMutation.add(date, entry.getFoodId(), entry.getServings()))));
+            snapshotSequence = snapshot.getJournalSequence();
+        }
+        long sequence = journal.replay(snapshotSequence, store::apply);
+        DailyLog merged = store.snapshot();
+        merged.setJournalSequence(sequence);
+        return merged;
+    }
+
+    private static Path path(Path dir, Dataset dataset, StorageBackend backend) {
+        return dir.resolve(dataset.fileName(backend));
+    }
+}
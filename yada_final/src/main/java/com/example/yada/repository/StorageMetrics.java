@@ -0,0 +1,64 @@
+package com.example.yada.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import com.example.yada.metrics.Histogram;
+import com.example.yada.metrics.Timer;
+import com.example.yada.metrics.YadaMetrics;
+
+// Counters for dataset writes, shared by the synchronous and write-behind paths
+public class StorageMetrics {
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final LongAccumulator maxFlushNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong pendingMutations = new AtomicLong();
+    private final AtomicLong coalescedMutations = new AtomicLong();
+    // Per-flush distributions, once bound to a metrics registry
+    private volatile Timer flushTimer = Timer.NOOP;
+    private volatile Histogram flushBytes = Histogram.NOOP;
+
+    // Publishes these counters and records each flush's duration and size
+    public void bind(YadaMetrics registry) {
+        flushTimer = registry.timer("storage.flush");
+        flushBytes = registry.histogram("storage.flush.bytes");
+        registry.counter("storage.flushes", this::getFlushCount);
+        registry.counter("storage.bytes.written", this::getBytesWritten);
+        registry.counter("storage.mutations.coalesced", this::getCoalescedMutations);
+        registry.gauge("storage.queue.depth", this::getQueueDepth);
+    }
+
+    void recordFlush(long nanos, long bytes) {
+        flushCount.incrementAndGet();
+        flushNanos.addAndGet(nanos);
+        lastFlushNanos.set(nanos);
+        maxFlushNanos.accumulate(nanos);
+        bytesWritten.addAndGet(bytes);
+        flushTimer.recordNanos(nanos);
+        flushBytes.record(bytes);
+    }
+
+    void recordMutation() {
+        pendingMutations.incrementAndGet();
+    }
+
+    void recordDrained(long mutations) {
+        pendingMutations.addAndGet(-mutations);
+        // Every mutation beyond the first in a flush was absorbed into it
+        coalescedMutations.addAndGet(Math.max(0, mutations - 1));
+    }
+
+    public long getFlushCount() { return flushCount.get(); }
+    public long getLastFlushNanos() { return lastFlushNanos.get(); }
+    public long getMaxFlushNanos() { return maxFlushNanos.get(); }
+    public long getBytesWritten() { return bytesWritten.get(); }
+    public long getQueueDepth() { return pendingMutations.get(); }
+    public long getCoalescedMutations() { return coalescedMutations.get(); }
+
+    public double getAverageFlushNanos() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : (double) flushNanos.get() / count;
+    }
+}
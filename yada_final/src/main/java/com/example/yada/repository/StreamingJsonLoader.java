@@ -0,0 +1,96 @@
+package com.example.yada.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.LogEntry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Token-level readers for the data files: catalog arrays are handed over one
+// element at a time, and daily-log dates outside a requested range are skipped
+// without being bound. Snapshot days are written in date order, so a range read
+// stops at the first day past its end once the journal sequence is known.
+class StreamingJsonLoader {
+    private final ObjectMapper mapper;
+
+    StreamingJsonLoader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    <T> void readArray(InputStream in, Class<T> type, Consumer<T> consumer) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(mapper.readValue(parser, type));
+            }
+            expect(parser.currentToken(), JsonToken.END_ARRAY);
+        }
+    }
+
+    // from/to are inclusive; null leaves that side open
+    DailyLog readDailyLog(InputStream in, LocalDate from, LocalDate to) throws IOException {
+        DailyLog log = new DailyLog();
+        boolean sequenceRead = false;
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("entries".equals(field) && value == JsonToken.START_OBJECT) {
+                    if (!readEntries(parser, log, from, to)) {
+                        continue;
+                    }
+                    if (sequenceRead) {
+                        break;
+                    }
+                    // Older snapshots put the sequence last; walk the remaining days unbound
+                    parser.skipChildren();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        parser.nextToken();
+                        parser.skipChildren();
+                    }
+                } else if ("journalSequence".equals(field)) {
+                    log.setJournalSequence(parser.getLongValue());
+                    sequenceRead = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return log;
+    }
+
+    // True if it stopped at the START_ARRAY of the first day after to
+    private boolean readEntries(JsonParser parser, DailyLog log, LocalDate from, LocalDate to) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            LocalDate date = LocalDate.parse(parser.currentName());
+            expect(parser.nextToken(), JsonToken.START_ARRAY);
+            if (to != null && date.isAfter(to)) {
+                return true;
+            }
+            if (from != null && date.isBefore(from)) {
+                parser.skipChildren();
+                continue;
+            }
+            List<LogEntry> entries = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                entries.add(mapper.readValue(parser, LogEntry.class));
+            }
+            log.getEntries().put(date, entries);
+        }
+        return false;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+}
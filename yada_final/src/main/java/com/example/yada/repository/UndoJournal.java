@@ -0,0 +1,216 @@
+package com.example.yada.repository;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bounded undo/redo history of one user's log as a ring of fixed-size records
+// (op, epoch day, food ordinal, servings). Each record is a forward mutation;
+// an action is a group of records undone and redone together. Undoable records
+// sit at [start, start + undoCount) and the redo tail right after them, so an
+// undo only moves the boundary. When the ring is full the oldest groups fall off.
+public class UndoJournal {
+    private static final int MAGIC = 0x59414455;
+    private static final byte GROUP_START = (byte) 0x80;
+    private static final byte OP_MASK = 0x0F;
+
+    private final FoodIdTable foodIds = new FoodIdTable();
+    private final byte[] ops;
+    private final int[] days;
+    private final int[] foods;
+    private final double[] servings;
+    private int start;
+    private int undoCount;
+    private int redoCount;
+    private int undoGroups;
+    private int redoGroups;
+    // Bumped on every change so the owner knows when to save
+    private long version;
+
+    public UndoJournal(int capacity) {
+        int size = Math.max(1, capacity);
+        ops = new byte[size];
+        days = new int[size];
+        foods = new int[size];
+        servings = new double[size];
+    }
+
+    // Records one action; any redo history is dropped. Only ADD and REMOVE can be
+    // reversed record by record, so callers spell a CLEAR as the REMOVEs of its entries.
+    public synchronized void record(List<LogMutation> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        redoCount = 0;
+        redoGroups = 0;
+        version++;
+        if (group.size() > ops.length) {
+            // Can't be kept whole, and older actions can't be undone past it
+            undoCount = 0;
+            undoGroups = 0;
+            return;
+        }
+        while (undoCount + group.size() > ops.length) {
+            dropOldestGroup();
+        }
+        for (int i = 0; i < group.size(); i++) {
+            LogMutation mutation = group.get(i);
+            if (mutation.getOp() == LogMutation.Op.CLEAR) {
+                throw new IllegalArgumentException("A cleared day must be recorded as its removed entries");
+            }
+            int slot = slot(undoCount++);
+            byte op = (byte) mutation.getOp().ordinal();
+            ops[slot] = i == 0 ? (byte) (op | GROUP_START) : op;
+            days[slot] = ColumnarLogStore.epochDay(mutation.getDate());
+            foods[slot] = foodIds.ordinal(mutation.getFoodId());
+            servings[slot] = mutation.getServings();
+        }
+        undoGroups++;
+    }
+
+    // The mutations that reverse the latest action, in the order to apply them;
+    // empty if there is nothing to undo
+    public synchronized List<LogMutation> undo() {
+        if (undoCount == 0) {
+            return List.of();
+        }
+        int first = undoCount - 1;
+        while ((ops[slot(first)] & GROUP_START) == 0) {
+            first--;
+        }
+        List<LogMutation> inverse = new ArrayList<>(undoCount - first);
+        for (int i = undoCount - 1; i >= first; i--) {
+            inverse.add(mutationAt(slot(i), true));
+        }
+        redoCount += undoCount - first;
+        undoCount = first;
+        undoGroups--;
+        redoGroups++;
+        version++;
+        return inverse;
+    }
+
+    // The mutations of the latest undone action, to apply again; empty if none
+    public synchronized List<LogMutation> redo() {
+        if (redoCount == 0) {
+            return List.of();
+        }
+        int end = undoCount + 1;
+        while (end < undoCount + redoCount && (ops[slot(end)] & GROUP_START) == 0) {
+            end++;
+        }
+        List<LogMutation> forward = new ArrayList<>(end - undoCount);
+        for (int i = undoCount; i < end; i++) {
+            forward.add(mutationAt(slot(i), false));
+        }
+        redoCount -= end - undoCount;
+        undoCount = end;
+        undoGroups++;
+        redoGroups--;
+        version++;
+        return forward;
+    }
+
+    public synchronized int undoSize() {
+        return undoGroups;
+    }
+
+    public synchronized int redoSize() {
+        return redoGroups;
+    }
+
+    public synchronized void clear() {
+        undoCount = 0;
+        redoCount = 0;
+        undoGroups = 0;
+        redoGroups = 0;
+        version++;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // Header, the food ids in ordinal order, then undo and redo records oldest first
+    public synchronized void write(OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeInt(foodIds.size());
+        for (int i = 0; i < foodIds.size(); i++) {
+            out.writeUTF(foodIds.id(i));
+        }
+        out.writeInt(undoCount);
+        out.writeInt(redoCount);
+        for (int i = 0; i < undoCount + redoCount; i++) {
+            int slot = slot(i);
+            out.writeByte(ops[slot]);
+            out.writeInt(days[slot]);
+            out.writeInt(foods[slot]);
+            out.writeDouble(servings[slot]);
+        }
+        out.flush();
+    }
+
+    // Replays saved history into a journal of the given capacity; a smaller
+    // capacity than before keeps only the newest groups that fit
+    public static UndoJournal read(InputStream source, int capacity) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an undo journal");
+        }
+        String[] ids = new String[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readUTF();
+        }
+        int undoCount = in.readInt();
+        int redoCount = in.readInt();
+        List<List<LogMutation>> groups = new ArrayList<>();
+        int redoGroups = 0;
+        for (int i = 0; i < undoCount + redoCount; i++) {
+            byte op = in.readByte();
+            if ((op & GROUP_START) != 0 || groups.isEmpty()) {
+                groups.add(new ArrayList<>());
+                if (i >= undoCount) {
+                    redoGroups++;
+                }
+            }
+            groups.get(groups.size() - 1).add(new LogMutation(0, LogMutation.Op.values()[op & OP_MASK],
+                LocalDate.ofEpochDay(in.readInt()), ids[in.readInt()], in.readDouble()));
+        }
+        // Redo groups go in as recorded actions, then are stepped back into the redo tail
+        UndoJournal journal = new UndoJournal(capacity);
+        groups.forEach(journal::record);
+        for (int i = 0; i < redoGroups && journal.undoGroups > 0; i++) {
+            journal.undo();
+        }
+        journal.version = 0;
+        return journal;
+    }
+
+    private void dropOldestGroup() {
+        int length = 1;
+        while (length < undoCount && (ops[slot(length)] & GROUP_START) == 0) {
+            length++;
+        }
+        start = (start + length) % ops.length;
+        undoCount -= length;
+        undoGroups--;
+    }
+
+    private int slot(int index) {
+        return (start + index) % ops.length;
+    }
+
+    private LogMutation mutationAt(int slot, boolean inverse) {
+        LogMutation.Op op = LogMutation.Op.values()[ops[slot] & OP_MASK];
+        if (inverse) {
+            op = op == LogMutation.Op.ADD ? LogMutation.Op.REMOVE : LogMutation.Op.ADD;
+        }
+        return new LogMutation(0, op, LocalDate.ofEpochDay(days[slot]), foodIds.id(foods[slot]), servings[slot]);
+    }
+}
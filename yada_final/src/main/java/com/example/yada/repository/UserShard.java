@@ -0,0 +1,347 @@
+package com.example.yada.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserContext;
+import com.example.yada.model.UserProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// One user's daily log, profile and undo history, loaded together on first use and saved and
+// closed together on eviction. A closed shard refuses changes, so callers retry
+// against the freshly loaded shard instead of writing into a dropped one.
+class UserShard {
+    static final String UNDO_FILE = "undoHistory.bin";
+    static final String JOURNAL_FILE = "dailyLogs.journal";
+    static final String LOG_SEGMENT_DIR = "logs";
+    // Suffix of a snapshot and journal already moved into mapped segments
+    static final String MIGRATED = ".migrated";
+
+    private final UserContext user;
+    private final Path dir;
+    private final StorageBackend backend;
+    private final StorageMetrics metrics;
+    // Holds only the journal sequence of the persisted snapshot; entries live in logStore
+    private final DailyLog dailyLog;
+    private final UserProfile userProfile;
+    private final LogStore logStore;
+    private final LogJournal journal;
+    private final UndoJournal undoJournal;
+    private long savedUndoVersion;
+    // Changes share this lock; compaction and close take it exclusively so a
+    // snapshot and the journal rotation see the same set of applied records
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object compactionLock = new Object();
+    private volatile boolean closed;
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    UserShard(UserContext user, Path dir, StorageProperties properties, StorageBackend backend,
+            ObjectMapper mapper, StorageMetrics metrics) {
+        this.user = user;
+        this.dir = dir;
+        this.backend = backend;
+        this.metrics = metrics;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create data directory " + dir, e);
+        }
+        boolean mapped = "mapped".equalsIgnoreCase(properties.getLogStore());
+        // Segments persist themselves; mapped mode keeps no snapshot document
+        this.dailyLog = mapped ? new DailyLog() : JsonDataStorage.load(path(Dataset.DAILY_LOGS),
+            in -> backend.readDailyLog(in, null, null), new DailyLog());
+        this.userProfile = JsonDataStorage.load(path(Dataset.USER_PROFILE),
+            backend::readUserProfile, new UserProfile());
+        int undoCapacity = properties.getUndo().getMaxRecords();
+        this.undoJournal = JsonDataStorage.load(dir.resolve(UNDO_FILE),
+            in -> UndoJournal.read(in, undoCapacity), new UndoJournal(undoCapacity));
+        try {
+            if (mapped) {
+                logStore = new MappedLogStore(dir.resolve(LOG_SEGMENT_DIR), properties.getMaxMappedSegments());
+                migrateIntoSegments(mapper);
+                journal = null;
+            } else {
+                logStore = new ColumnarLogStore();
+                moveSnapshotIntoLogStore();
+                journal = properties.getJournal().isEnabled()
+                    ? openJournal(mapper, properties.getJournal().getFsyncBatchSize())
+                    : null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the daily log of user " + user.getUserId(), e);
+        }
+    }
+
+    // Replay: every journal record newer than the dailyLogs snapshot
+    private LogJournal openJournal(ObjectMapper mapper, int fsyncBatchSize) throws IOException {
+        LogJournal opened = new LogJournal(dir.resolve(JOURNAL_FILE), mapper, fsyncBatchSize);
+        opened.open(dailyLog.getJournalSequence(), logStore::apply);
+        return opened;
+    }
+
+    // A heap-mode snapshot or journal still here is newer than the segments: either
+    // this is the first start in mapped mode, the user ran in heap mode since, or
+    // an earlier migration stopped midway. Its contents replace the segments', with
+    // journal records past the snapshot replayed, and the files are then renamed
+    // to *.migrated so they are read exactly once.
+    private void migrateIntoSegments(ObjectMapper mapper) throws IOException {
+        Path snapshot = path(Dataset.DAILY_LOGS);
+        LogJournal legacyJournal = new LogJournal(dir.resolve(JOURNAL_FILE), mapper, 1);
+        if (!AtomicFileStore.exists(snapshot) && !legacyJournal.exists()) {
+            return;
+        }
+        DailyLog legacy = JsonDataStorage.load(snapshot, in -> backend.readDailyLog(in, null, null), new DailyLog());
+        logStore.datesWithLogs().forEach(date -> logStore.apply(LogMutation.clear(date)));
+        legacy.getEntries().forEach((date, entries) -> entries.forEach(entry ->
+            logStore.apply(LogMutation.add(date, entry.getFoodId(), entry.getServings()))));
+        legacyJournal.replay(legacy.getJournalSequence(), logStore::apply);
+        logStore.flush();
+        AtomicFileStore.moveAside(snapshot, MIGRATED);
+        legacyJournal.retire(MIGRATED);
+    }
+
+    // Entries move out of the loaded DailyLog, which keeps only its journal sequence
+    private void moveSnapshotIntoLogStore() {
+        dailyLog.getEntries().forEach((date, entries) -> entries.forEach(entry ->
+            logStore.apply(LogMutation.add(date, entry.getFoodId(), entry.getServings()))));
+        dailyLog.getEntries().clear();
+    }
+
+    // Null if the shard was closed before the mutation could be applied
+    Boolean apply(LogMutation mutation, List<LogListener> listeners, Runnable onChange) {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            if (!logStore.apply(mutation)) {
+                return false;
+            }
+            listeners.forEach(listener -> listener.onMutation(user, logStore, mutation));
+            if (journal != null) {
+                journal.append(mutation);
+            } else {
+                onChange.run();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the daily log journal", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A batch as one step: one journal write (or one save) for all of it.
+    // Null if the shard was closed first.
+    Integer applyAll(List<LogMutation> mutations, List<LogListener> listeners, Runnable onChange) {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return null;
+            }
+            int applied = logStore.applyAll(mutations);
+            if (applied == 0) {
+                return 0;
+            }
+            listeners.forEach(listener -> listener.onBatch(user, logStore, mutations));
+            // Mutations that changed nothing are journaled too; they replay as no-ops
+            if (journal != null) {
+                journal.appendAll(mutations);
+            } else {
+                onChange.run();
+            }
+            return applied;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the daily log journal", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // False if the shard was closed first
+    boolean updateProfile(Consumer<UserProfile> update, Runnable onChange) {
+        lock.readLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            synchronized (userProfile) {
+                update.accept(userProfile);
+            }
+            onChange.run();
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A forced write still runs after close; that is the shard's final save
+    void write(Dataset dataset, boolean force) {
+        if (dataset == Dataset.DAILY_LOGS) {
+            // Undo history rides along with the log; a crash can lose its newest
+            // actions but never leaves records for changes the log doesn't have
+            writeUndoJournal(force);
+        }
+        if (dataset == Dataset.DAILY_LOGS && journal != null) {
+            compact(force);
+            return;
+        }
+        if (dataset == Dataset.DAILY_LOGS && logStore instanceof MappedLogStore) {
+            try {
+                logStore.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not flush the daily log of user " + user.getUserId(), e);
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        Path path = path(dataset);
+        synchronized (AtomicFileStore.lockFor(path)) {
+            if (closed && !force) {
+                return;
+            }
+            try {
+                byte[] bytes = encode(dataset);
+                AtomicFileStore.write(path, bytes);
+                metrics.recordFlush(System.nanoTime() - start, bytes.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save " + path, e);
+            }
+        }
+    }
+
+    private void writeUndoJournal(boolean force) {
+        Path path = dir.resolve(UNDO_FILE);
+        synchronized (AtomicFileStore.lockFor(path)) {
+            long version = undoJournal.getVersion();
+            if ((closed && !force) || version == savedUndoVersion) {
+                return;
+            }
+            try {
+                AtomicFileStore.write(path, undoJournal::write);
+                savedUndoVersion = version;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not save " + path, e);
+            }
+        }
+    }
+
+    // Folds the journal into a fresh dailyLogs snapshot
+    private void compact(boolean force) {
+        long start = System.nanoTime();
+        // One compaction at a time, or an older snapshot could land after a newer one
+        synchronized (compactionLock) {
+            try {
+                byte[] bytes;
+                lock.writeLock().lock();
+                try {
+                    if (closed && !force) {
+                        return;
+                    }
+                    dailyLog.setJournalSequence(journal.rotate());
+                    bytes = encode(Dataset.DAILY_LOGS);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                AtomicFileStore.write(path(Dataset.DAILY_LOGS), bytes);
+                journal.discardRotated();
+                metrics.recordFlush(System.nanoTime() - start, bytes.length);
+            } catch (IOException e) {
+                // The rotated journal stays; the next compaction folds it in again
+                throw new UncheckedIOException("Could not compact the daily log of user " + user.getUserId(), e);
+            }
+        }
+    }
+
+    void compactIfNeeded() {
+        if (journal != null && journal.getRecordCount() > 0) {
+            compact(false);
+        }
+    }
+
+    private byte[] encode(Dataset dataset) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (dataset == Dataset.DAILY_LOGS) {
+            DailyLog snapshot = logStore.snapshot();
+            snapshot.setJournalSequence(dailyLog.getJournalSequence());
+            backend.writeDailyLog(out, snapshot);
+        } else {
+            synchronized (userProfile) {
+                backend.writeUserProfile(out, userProfile);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // Refuses further changes, then saves everything and releases the store.
+    // False if the final save failed: the shard then reopens and keeps its data.
+    boolean close() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return true;
+            }
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            write(Dataset.DAILY_LOGS, true);
+            write(Dataset.USER_PROFILE, true);
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            lock.writeLock().lock();
+            try {
+                closed = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            logStore.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return true;
+    }
+
+    Path path(Dataset dataset) {
+        return dir.resolve(dataset.fileName(backend));
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    UserContext getUser() {
+        return user;
+    }
+
+    LogStore getLogStore() {
+        return logStore;
+    }
+
+    UndoJournal getUndoJournal() {
+        return undoJournal;
+    }
+
+    UserProfile getUserProfile() {
+        return userProfile;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.yada.repository;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Coalesces saves: mutations only mark a key (a dataset, possibly of one user)
+// dirty and a single background thread writes each dirty key at most once per
+// interval.
+class WriteBehindFlusher<K> {
+    private final Map<K, Long> pending = new ConcurrentHashMap<>();
+    private final Consumer<K> writer;
+    private final StorageMetrics metrics;
+    private final ScheduledExecutorService executor;
+
+    WriteBehindFlusher(long intervalMs, Consumer<K> writer, StorageMetrics metrics) {
+        this.writer = writer;
+        this.metrics = metrics;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "yada-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushDirty, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void markDirty(K key) {
+        pending.merge(key, 1L, Long::sum);
+        metrics.recordMutation();
+    }
+
+    synchronized void flushDirty() {
+        for (K key : new ArrayList<>(pending.keySet())) {
+            Long mutations = pending.remove(key);
+            if (mutations == null) {
+                continue;
+            }
+            try {
+                writer.accept(key);
+            } catch (RuntimeException e) {
+                // Keep the key dirty so the next tick retries it
+                pending.merge(key, mutations, Long::sum);
+                e.printStackTrace();
+                continue;
+            }
+            metrics.recordDrained(mutations);
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushDirty();
+    }
+}
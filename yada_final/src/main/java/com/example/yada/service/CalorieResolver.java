@@ -0,0 +1,202 @@
+package com.example.yada.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.yada.metrics.Counter;
+import com.example.yada.metrics.Histogram;
+import com.example.yada.metrics.YadaMetrics;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.repository.FoodIndex;
+
+// Per-serving nutrient cache for composite foods. Each composite is flattened
+// once, in dependency order, into a vector of basic-food servings, so its
+// nutrient vector is a weighted sum of basic-food vectors rather than a
+// recursive walk. A reverse-dependency graph limits invalidation to the
+// composites that actually use a changed food.
+public class CalorieResolver {
+    private final FoodIndex index;
+    private final Map<String, FlattenedRecipe> recipes = new HashMap<>();
+    // Nutrient vector per serving of each resolved food, basic or composite
+    private final Map<String, double[]> perServing = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Histogram depths;
+
+    public CalorieResolver(FoodIndex index) {
+        this(index, YadaMetrics.disabled());
+    }
+
+    public CalorieResolver(FoodIndex index, YadaMetrics metrics) {
+        this.index = index;
+        this.hits = metrics.counter("calories.cache.hits");
+        this.misses = metrics.counter("calories.cache.misses");
+        this.depths = metrics.histogram("calories.recursion.depth");
+    }
+
+    public synchronized double perServingCalories(CompositeFood composite) {
+        return perServingNutrients(composite)[NutrientVectors.CALORIES];
+    }
+
+    // Shared vector; callers must not modify it
+    public synchronized double[] perServingNutrients(CompositeFood composite) {
+        String key = FoodIndex.key(composite.getId());
+        double[] cached = perServing.get(key);
+        if (cached != null) {
+            hits.increment();
+            if (depths != Histogram.NOOP) {
+                depths.record(recipes.get(key).depth());
+            }
+            return cached;
+        }
+        misses.increment();
+        FlattenedRecipe recipe = flatten(composite);
+        depths.record(recipe.depth());
+        double[] total = new double[NutrientVectors.WIDTH];
+        for (int i = 0; i < recipe.size(); i++) {
+            NutrientVectors.addScaled(total, 0, basicNutrients(recipe.foodKey(i)), 0, recipe.servings(i));
+        }
+        perServing.put(key, total);
+        return total;
+    }
+
+    // Any food in the catalog, basic foods first; a shared vector as above
+    public synchronized double[] perServingNutrients(String id) {
+        String key = FoodIndex.key(id);
+        double[] cached = perServing.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (index.findBasic(id).isPresent()) {
+            return basicNutrients(key);
+        }
+        return perServingNutrients(index.findComposite(id)
+            .orElseThrow(() -> new IllegalArgumentException("Food with ID '" + id + "' not found!")));
+    }
+
+    // Flattens the composite, which need not be in the catalog yet. Fails if the
+    // ingredient graph reaches the composite again.
+    public synchronized FlattenedRecipe flatten(CompositeFood composite) {
+        String rootKey = FoodIndex.key(composite.getId());
+        FlattenedRecipe cached = recipes.get(rootKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Iterative post-order walk: a composite is flattened once all of its
+        // composite ingredients are
+        Deque<Frame> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        stack.push(new Frame(composite));
+        onStack.add(rootKey);
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            CompositeFood pending = null;
+            while (pending == null && frame.ingredients.hasNext()) {
+                CompositeFood ingredient = resolveComposite(frame.ingredients.next(), composite);
+                if (ingredient == null) {
+                    continue;
+                }
+                String key = FoodIndex.key(ingredient.getId());
+                if (onStack.contains(key)) {
+                    throw new IllegalArgumentException("Composite food '" + ingredient.getId()
+                        + "' would contain itself!");
+                }
+                if (!recipes.containsKey(key)) {
+                    pending = ingredient;
+                }
+            }
+            if (pending != null) {
+                stack.push(new Frame(pending));
+                onStack.add(FoodIndex.key(pending.getId()));
+                continue;
+            }
+            stack.pop();
+            onStack.remove(FoodIndex.key(frame.composite.getId()));
+            recipes.put(FoodIndex.key(frame.composite.getId()), combine(frame.composite, composite));
+        }
+        return recipes.get(rootKey);
+    }
+
+    private static class Frame {
+        final CompositeFood composite;
+        final Iterator<String> ingredients;
+
+        Frame(CompositeFood composite) {
+            this.composite = composite;
+            this.ingredients = composite.getIngredients().keySet().iterator();
+        }
+    }
+
+    private FlattenedRecipe combine(CompositeFood composite, CompositeFood root) {
+        String key = FoodIndex.key(composite.getId());
+        Map<String, Double> basicServings = new LinkedHashMap<>();
+        int depth = 1;
+        for (Map.Entry<String, Double> ingredient : composite.getIngredients().entrySet()) {
+            String ingredientKey = FoodIndex.key(ingredient.getKey());
+            dependents.computeIfAbsent(ingredientKey, k -> new HashSet<>()).add(key);
+
+            CompositeFood sub = resolveComposite(ingredientKey, root);
+            if (sub == null) {
+                basicServings.merge(ingredientKey, ingredient.getValue(), Double::sum);
+            } else {
+                FlattenedRecipe subRecipe = recipes.get(FoodIndex.key(sub.getId()));
+                subRecipe.accumulate(basicServings, ingredient.getValue());
+                depth = Math.max(depth, subRecipe.depth() + 1);
+            }
+        }
+        return FlattenedRecipe.of(basicServings, depth);
+    }
+
+    // Basic foods win over composites with the same id; returns null for a basic food
+    private CompositeFood resolveComposite(String id, CompositeFood root) {
+        if (index.findBasic(id).isPresent()) {
+            return null;
+        }
+        if (FoodIndex.key(id).equals(FoodIndex.key(root.getId()))) {
+            return root;
+        }
+        return index.findComposite(id)
+            .orElseThrow(() -> new IllegalArgumentException("Food with ID '" + id + "' not found!"));
+    }
+
+    private double[] basicNutrients(String key) {
+        return perServing.computeIfAbsent(key, k -> NutrientVectors.of(index.findBasic(k)
+            .orElseThrow(() -> new IllegalArgumentException("Food with ID '" + k + "' not found!"))));
+    }
+
+    // Drops the cached value of every composite that depends on the food, directly
+    // or not; returns the case-folded ids of the food and those composites
+    public synchronized Set<String> invalidate(String foodId) {
+        Deque<String> queue = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        queue.add(FoodIndex.key(foodId));
+        while (!queue.isEmpty()) {
+            String key = queue.poll();
+            if (!seen.add(key)) {
+                continue;
+            }
+            recipes.remove(key);
+            perServing.remove(key);
+            queue.addAll(dependents.getOrDefault(key, Set.of()));
+        }
+        return seen;
+    }
+
+    public synchronized void clear() {
+        recipes.clear();
+        perServing.clear();
+        dependents.clear();
+    }
+
+    public synchronized int cachedCount() {
+        return perServing.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.yada.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A composite food reduced to basic-food servings per single serving of the composite
+public final class FlattenedRecipe {
+    private final String[] foodKeys;
+    private final double[] servings;
+    // Nesting levels walked to flatten it: 1 when every ingredient is basic
+    private final int depth;
+
+    private FlattenedRecipe(String[] foodKeys, double[] servings, int depth) {
+        this.foodKeys = foodKeys;
+        this.servings = servings;
+        this.depth = depth;
+    }
+
+    static FlattenedRecipe of(Map<String, Double> basicServings, int depth) {
+        String[] keys = new String[basicServings.size()];
+        double[] amounts = new double[basicServings.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> entry : basicServings.entrySet()) {
+            keys[i] = entry.getKey();
+            amounts[i] = entry.getValue();
+            i++;
+        }
+        return new FlattenedRecipe(keys, amounts, depth);
+    }
+
+    // Adds this recipe scaled by factor into the accumulator, keyed by basic food
+    void accumulate(Map<String, Double> into, double factor) {
+        for (int i = 0; i < foodKeys.length; i++) {
+            into.merge(foodKeys[i], servings[i] * factor, Double::sum);
+        }
+    }
+
+    public int size() {
+        return foodKeys.length;
+    }
+
+    public String foodKey(int i) {
+        return foodKeys[i];
+    }
+
+    public double servings(int i) {
+        return servings[i];
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public Map<String, Double> asMap() {
+        Map<String, Double> map = new LinkedHashMap<>();
+        accumulate(map, 1.0);
+        return map;
+    }
+}
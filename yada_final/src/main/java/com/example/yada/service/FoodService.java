@@ -1,24 +1,61 @@
 package com.example.yada.service;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.yada.metrics.Timer;
+import com.example.yada.metrics.YadaMetrics;
 import com.example.yada.model.BasicFood;
 import com.example.yada.model.CompositeFood;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.NutrientTotals;
 import com.example.yada.repository.JsonDataStorage;
 
 @Service
 public class FoodService {
-    @Autowired private JsonDataStorage storage;
-    
+    private final JsonDataStorage storage;
+    private final CalorieResolver calorieResolver;
+    private static final int CHANGE_HISTORY = 1024;
+
+    // Bumped on every catalog change so derived calorie data knows it is stale
+    private final AtomicLong catalogVersion = new AtomicLong();
+    // Case-folded ids whose per-serving values each recent version changed
+    private final NavigableMap<Long, Set<String>> changes = new TreeMap<>();
+    private final Timer findTimer;
+    private final Timer searchTimer;
+    private final Timer caloriesTimer;
+
+    public FoodService(JsonDataStorage storage) {
+        this(storage, YadaMetrics.disabled());
+    }
+
+    @Autowired
+    public FoodService(JsonDataStorage storage, YadaMetrics metrics) {
+        this.storage = storage;
+        this.calorieResolver = new CalorieResolver(storage.getFoodIndex(), metrics);
+        this.findTimer = metrics.timer("food.find");
+        this.searchTimer = metrics.timer("food.search");
+        this.caloriesTimer = metrics.timer("food.calories");
+        metrics.gauge("food.catalog.size", this::getTotalFoodCount);
+    }
+
     // Basic Food Operations
     public void addBasicFood(String id, List<String> keywords, int calories) {
+        addBasicFood(id, keywords, calories, Map.of());
+    }
+
+    // Nutrients other than calories, per serving; missing ones count as zero
+    public void addBasicFood(String id, List<String> keywords, int calories, Map<Nutrient, Double> nutrients) {
         // Check for duplicates
         if (findFoodById(id).isPresent()) {
             throw new IllegalArgumentException("Food with ID '" + id + "' already exists!");
@@ -31,15 +68,32 @@ public class FoodService {
         if (calories < 0) {
             throw new IllegalArgumentException("Calories cannot be negative!");
         }
+        double[] vector = null;
+        if (nutrients != null && !nutrients.isEmpty()) {
+            vector = new double[Nutrient.COUNT];
+            for (Map.Entry<Nutrient, Double> nutrient : nutrients.entrySet()) {
+                if (nutrient.getKey() == Nutrient.CALORIES) {
+                    throw new IllegalArgumentException("Calories are set through calories per serving!");
+                }
+                if (nutrient.getValue() == null || !(nutrient.getValue() >= 0) || nutrient.getValue().isInfinite()) {
+                    throw new IllegalArgumentException("Nutrient values cannot be negative!");
+                }
+                vector[nutrient.getKey().ordinal()] = nutrient.getValue();
+            }
+        }
         
-        storage.getBasicFoods().add(new BasicFood(id.trim(), keywords, calories));
+        BasicFood food = new BasicFood(id.trim(), keywords, calories, vector);
+        synchronized (storage) {
+            storage.getBasicFoods().add(food);
+            storage.getFoodIndex().addBasic(food);
+        }
+        // A basic food shadows a composite with the same id
+        recordChange(calorieResolver.invalidate(food.getId()));
         storage.saveBasicFoods();
     }
     
     public Optional<BasicFood> findFoodById(String id) {
-        return storage.getBasicFoods().stream()
-                .filter(f -> f.getId().equalsIgnoreCase(id))
-                .findFirst();
+        return findTimer.record(() -> storage.getFoodIndex().findBasic(id));
     }
     
     public List<BasicFood> getAllBasicFoods() {
@@ -47,8 +101,16 @@ public class FoodService {
     }
     
     public boolean deleteBasicFood(String id) {
-        boolean removed = storage.getBasicFoods().removeIf(f -> f.getId().equalsIgnoreCase(id));
+        if (findFoodById(id).isEmpty()) {
+            return false;
+        }
+        boolean removed;
+        synchronized (storage) {
+            removed = storage.getBasicFoods().removeIf(f -> f.getId().equalsIgnoreCase(id));
+        }
         if (removed) {
+            storage.getFoodIndex().removeBasic(id);
+            recordChange(calorieResolver.invalidate(id));
             storage.saveBasicFoods();
         }
         return removed;
@@ -59,12 +121,7 @@ public class FoodService {
             return getAllBasicFoods();
         }
         
-        String searchTerm = keyword.toLowerCase().trim();
-        return storage.getBasicFoods().stream()
-                .filter(f -> f.getKeywords().stream()
-                    .anyMatch(k -> k.toLowerCase().contains(searchTerm)) ||
-                    f.getId().toLowerCase().contains(searchTerm))
-                .collect(Collectors.toList());
+        return searchTimer.record(() -> storage.getFoodIndex().searchBasic(keyword.trim()));
     }
     
     // Composite Food Operations
@@ -87,14 +144,20 @@ public class FoodService {
         }
         
         CompositeFood composite = new CompositeFood(id.trim(), keywords, ingredients);
-        storage.getCompositeFoods().add(composite);
+        // Composites referring to a dangling id are re-resolved against the new food,
+        // then the new recipe is flattened up front, which rejects cycles
+        Set<String> changed = calorieResolver.invalidate(composite.getId());
+        calorieResolver.flatten(composite);
+        synchronized (storage) {
+            storage.getCompositeFoods().add(composite);
+            storage.getFoodIndex().addComposite(composite);
+        }
+        recordChange(changed);
         storage.saveCompositeFoods();
     }
     
     public Optional<CompositeFood> findCompositeFoodById(String id) {
-        return storage.getCompositeFoods().stream()
-                .filter(f -> f.getId().equalsIgnoreCase(id))
-                .findFirst();
+        return storage.getFoodIndex().findComposite(id);
     }
     
     public List<CompositeFood> getAllCompositeFoods() {
@@ -102,8 +165,16 @@ public class FoodService {
     }
     
     public boolean deleteCompositeFood(String id) {
-        boolean removed = storage.getCompositeFoods().removeIf(f -> f.getId().equalsIgnoreCase(id));
+        if (findCompositeFoodById(id).isEmpty()) {
+            return false;
+        }
+        boolean removed;
+        synchronized (storage) {
+            removed = storage.getCompositeFoods().removeIf(f -> f.getId().equalsIgnoreCase(id));
+        }
         if (removed) {
+            storage.getFoodIndex().removeComposite(id);
+            recordChange(calorieResolver.invalidate(id));
             storage.saveCompositeFoods();
         }
         return removed;
@@ -114,16 +185,15 @@ public class FoodService {
             return getAllCompositeFoods();
         }
         
-        String searchTerm = keyword.toLowerCase().trim();
-        return storage.getCompositeFoods().stream()
-                .filter(f -> f.getKeywords().stream()
-                    .anyMatch(k -> k.toLowerCase().contains(searchTerm)) ||
-                    f.getId().toLowerCase().contains(searchTerm))
-                .collect(Collectors.toList());
+        return searchTimer.record(() -> storage.getFoodIndex().searchComposite(keyword.trim()));
     }
     
     // Calorie Calculation
     public int calculateCalories(String foodId, double servings) {
+        return caloriesTimer.record(() -> resolveCalories(foodId, servings));
+    }
+
+    private int resolveCalories(String foodId, double servings) {
         // Check basic foods first
         Optional<BasicFood> basicFood = findFoodById(foodId);
         if (basicFood.isPresent()) {
@@ -139,26 +209,59 @@ public class FoodService {
         throw new IllegalArgumentException("Food with ID '" + foodId + "' not found!");
     }
     
+    // Every nutrient for the servings, unrounded
+    public NutrientTotals calculateNutrients(String foodId, double servings) {
+        double[] total = new double[Nutrient.COUNT];
+        NutrientVectors.addScaled(total, 0, nutrientsPerServing(foodId), 0, servings);
+        return new NutrientTotals(total);
+    }
+
+    // The resolver's shared vector, for LogService's ledgers; not to be modified
+    double[] nutrientsPerServing(String foodId) {
+        return caloriesTimer.record(() -> calorieResolver.perServingNutrients(foodId));
+    }
+
     private int calculateCompositeCalories(CompositeFood compositeFood, double servings) {
-        double totalCalories = 0;
-        
-        for (Map.Entry<String, Double> ingredient : compositeFood.getIngredients().entrySet()) {
-            String ingredientId = ingredient.getKey();
-            double ingredientServings = ingredient.getValue() * servings;
-            
-            totalCalories += calculateCalories(ingredientId, ingredientServings);
-        }
-        
-        return (int) Math.round(totalCalories);
+        // Rounded once per entry from the cached per-serving value
+        return (int) Math.round(calorieResolver.perServingCalories(compositeFood) * servings);
+    }
+    
+    public FlattenedRecipe getFlattenedRecipe(String compositeId) {
+        CompositeFood composite = findCompositeFoodById(compositeId)
+            .orElseThrow(() -> new IllegalArgumentException("Composite food with ID '" + compositeId + "' not found!"));
+        return calorieResolver.flatten(composite);
     }
     
     // Utility Methods
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    private synchronized void recordChange(Set<String> foods) {
+        changes.put(catalogVersion.incrementAndGet(), foods);
+        if (changes.size() > CHANGE_HISTORY) {
+            changes.pollFirstEntry();
+        }
+    }
+
+    // Case-folded ids of the foods changed after the version, or null if the
+    // history no longer reaches back that far
+    synchronized Set<String> changedSince(long version) {
+        long oldest = changes.isEmpty() ? catalogVersion.get() + 1 : changes.firstKey();
+        if (version < 0 || oldest > version + 1) {
+            return null;
+        }
+        Set<String> changed = new HashSet<>();
+        changes.tailMap(version, false).values().forEach(changed::addAll);
+        return changed;
+    }
+
     public int getTotalFoodCount() {
         return storage.getBasicFoods().size() + storage.getCompositeFoods().size();
     }
     
     public boolean foodExists(String id) {
-        return findFoodById(id).isPresent() || findCompositeFoodById(id).isPresent();
+        return storage.getFoodIndex().contains(id);
     }
     
     public List<String> getAllFoodIds() {
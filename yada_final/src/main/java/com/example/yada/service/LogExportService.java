@@ -0,0 +1,93 @@
+package com.example.yada.service;
+
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.UserContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Writes a food log in the formats LogImportService reads: CSV with a header,
+// or JSON lines. Entries are streamed from LogService a day at a time straight
+// into the output, so exporting years of history runs in constant memory.
+@Service
+public class LogExportService {
+    private final LogService logService;
+    private final ObjectWriter jsonWriter = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .writerFor(FoodLogRequest.class);
+
+    @Autowired
+    public LogExportService(LogService logService) {
+        this.logService = logService;
+    }
+
+    // Format by extension: .csv, or .json / .jsonl for JSON lines
+    public long exportFile(UserContext user, LocalDate from, LocalDate to, Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean csv = name.endsWith(".csv");
+        if (!csv && !name.endsWith(".json") && !name.endsWith(".jsonl")) {
+            throw new IllegalArgumentException("Unsupported export file '" + file.getFileName() + "'!");
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return csv ? exportCsv(user, from, to, out) : exportJsonLines(user, from, to, out);
+        }
+    }
+
+    // The stream is flushed but left open; returns the number of entries written
+    public long exportCsv(UserContext user, LocalDate from, LocalDate to, OutputStream target) throws IOException {
+        Writer out = writer(target);
+        out.write("date,foodId,servings\n");
+        long count = write(user, from, to, out, entry -> entry.getDate() + "," + entry.getFoodId() + ","
+            + entry.getServings());
+        out.flush();
+        return count;
+    }
+
+    public long exportJsonLines(UserContext user, LocalDate from, LocalDate to, OutputStream target)
+            throws IOException {
+        Writer out = writer(target);
+        long count = write(user, from, to, out, this::json);
+        out.flush();
+        return count;
+    }
+
+    private long write(UserContext user, LocalDate from, LocalDate to, Writer out, Function<FoodLogRequest, String> format) throws IOException {
+        long count = 0;
+        Iterator<FoodLogRequest> entries = logService.streamEntries(user, from, to).iterator();
+        while (entries.hasNext()) {
+            out.write(format.apply(entries.next()));
+            out.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    private String json(FoodLogRequest entry) {
+        try {
+            return jsonWriter.writeValueAsString(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Writer writer(OutputStream target) {
+        return new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.yada.service;
+
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.UserContext;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Bulk backfill of a food log from CSV (date,foodId,servings per line, optional
+// header) or JSON (an array or one object per line). The file is parsed in one
+// streaming pass and logged as a single batch, so it is all-or-nothing and one undo.
+@Service
+public class LogImportService {
+    private final LogService logService;
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Autowired
+    public LogImportService(LogService logService) {
+        this.logService = logService;
+    }
+
+    // Format by extension: .csv, or .json / .jsonl
+    public int importFile(UserContext user, Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                return importCsv(user, reader);
+            }
+        }
+        if (name.endsWith(".json") || name.endsWith(".jsonl")) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return importJson(user, in);
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import file '" + file.getFileName() + "'!");
+    }
+
+    public int importCsv(UserContext user, Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        List<FoodLogRequest> requests = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("date"))) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected date,foodId,servings");
+            }
+            try {
+                requests.add(new FoodLogRequest(LocalDate.parse(parts[0].trim()), parts[1].trim(),
+                    Double.parseDouble(parts[2].trim())));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return logService.logFoods(user, requests);
+    }
+
+    public int importJson(UserContext user, InputStream in) throws IOException {
+        List<FoodLogRequest> requests = new ArrayList<>();
+        try (MappingIterator<FoodLogRequest> entries = mapper.readerFor(FoodLogRequest.class).readValues(in)) {
+            while (entries.hasNextValue()) {
+                requests.add(entries.nextValue());
+            }
+        }
+        return logService.logFoods(user, requests);
+    }
+}
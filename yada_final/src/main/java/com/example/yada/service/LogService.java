@@ -1,21 +1,133 @@
 package com.example.yada.service;
 
+import com.example.yada.metrics.Timer;
+import com.example.yada.metrics.YadaMetrics;
+import com.example.yada.model.DailyCalories;
+import com.example.yada.model.FoodLogRequest;
 import com.example.yada.model.LogEntry;
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
 import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.repository.LogListener;
+import com.example.yada.repository.LogMutation;
+import com.example.yada.repository.LogStore;
+import com.example.yada.repository.UndoJournal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Safe for concurrent use. Every call acts on one user's log. Each user has a
+// read-write lock: every change to the log (single entries, batches, undo and
+// redo) takes it exclusively, while reports share it, so a report spanning
+// several days or calls sees the log as of between two changes. Single-day
+// reads only take that day's lock stripe, which single-day changes also hold.
+// Users never contend on each other's lock, so different users log in parallel.
 @Service
 public class LogService {
-    @Autowired private JsonDataStorage storage;
-    @Autowired private FoodService foodService;
-    private final Deque<Runnable> undoStack = new ArrayDeque<>();
+    private static final int LOCK_STRIPES = 64;
 
-    public void logFood(LocalDate date, String foodId, double servings) {
+    private final JsonDataStorage storage;
+    private final FoodService foodService;
+    // Nutrient ledger of each user whose shard is loaded
+    private final Map<UserContext, UserLogState> users = new ConcurrentHashMap<>();
+    private final ReentrantLock[] dayLocks = new ReentrantLock[LOCK_STRIPES];
+    // Kept for every user seen rather than dropped on eviction, so two threads
+    // can never end up holding different locks for the same user
+    private final Map<UserContext, ReentrantReadWriteLock> userLocks = new ConcurrentHashMap<>();
+    private final Timer writeTimer;
+    private final Timer batchTimer;
+    private final Timer caloriesTimer;
+    private final Timer weeklyTimer;
+    private final Timer frequencyTimer;
+    private final Timer undoTimer;
+
+    private record UserLogState(LogStore store, NutrientLedger ledger) {
+    }
+
+    public LogService(JsonDataStorage storage, FoodService foodService) {
+        this(storage, foodService, YadaMetrics.disabled());
+    }
+
+    @Autowired
+    public LogService(JsonDataStorage storage, FoodService foodService, YadaMetrics metrics) {
+        this.storage = storage;
+        this.foodService = foodService;
+        this.writeTimer = metrics.timer("log.write");
+        this.batchTimer = metrics.timer("log.batch");
+        this.caloriesTimer = metrics.timer("log.calories");
+        this.weeklyTimer = metrics.timer("log.weekly");
+        this.frequencyTimer = metrics.timer("log.frequency");
+        this.undoTimer = metrics.timer("log.undo");
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            dayLocks[i] = new ReentrantLock();
+        }
+        storage.addLogListener(new LogListener() {
+            @Override
+            public void onMutation(UserContext user, LogStore store, LogMutation mutation) {
+                NutrientLedger ledger = ledger(user, store);
+                if (ledger != null) {
+                    ledger.onMutation(mutation);
+                }
+            }
+
+            @Override
+            public void onBatch(UserContext user, LogStore store, List<LogMutation> mutations) {
+                NutrientLedger ledger = ledger(user, store);
+                if (ledger != null) {
+                    ledger.onBatch(mutations);
+                }
+            }
+        });
+        storage.addEvictionListener(users::remove);
+    }
+
+    public void logFood(UserContext user, LocalDate date, String foodId, double servings) {
         // Validate input
+        LogMutation mutation = validate(date, foodId, servings);
+        writeTimer.record(() -> changeDay(user, date, () -> {
+            storage.applyLogMutation(user, mutation);
+
+            // Add undo operation
+            storage.getUndoJournal(user).record(List.of(mutation));
+            return true;
+        }));
+    }
+
+    // Logs a whole batch as one action: every entry is checked against the catalog
+    // before any is applied, then all go in with a single journal write or save
+    // and come off again with a single undo. Returns the number of entries logged.
+    public int logFoods(UserContext user, List<FoodLogRequest> requests) {
+        List<LogMutation> mutations = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            FoodLogRequest request = requests.get(i);
+            try {
+                mutations.add(validate(request.getDate(), request.getFoodId(), request.getServings()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Entry " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (mutations.isEmpty()) {
+            return 0;
+        }
+        // Exclusive, so no report or other change sees part of the batch
+        return batchTimer.record(() -> compoundChange(user, () -> {
+            storage.applyLogMutations(user, mutations);
+            storage.getUndoJournal(user).record(mutations);
+            return mutations.size();
+        }));
+    }
+
+    private LogMutation validate(LocalDate date, String foodId, double servings) {
         if (date == null) {
             throw new IllegalArgumentException("Date cannot be null!");
         }
@@ -28,96 +140,118 @@ public class LogService {
         if (!foodService.foodExists(foodId)) {
             throw new IllegalArgumentException("Food with ID '" + foodId + "' does not exist!");
         }
-        
-        LogEntry entry = new LogEntry();
-        entry.setFoodId(foodId.trim());
-        entry.setServings(servings);
-        
-        List<LogEntry> dailyEntries = storage.getDailyLog().getEntries()
-            .computeIfAbsent(date, k -> new ArrayList<>());
-        
-        dailyEntries.add(entry);
-        
-        // Add undo operation
-        undoStack.push(() -> dailyEntries.remove(entry));
-        
-        storage.saveDailyLogs();
+        return LogMutation.add(date, foodId.trim(), servings);
     }
 
-    public List<LogEntry> getDailyLog(LocalDate date) {
+    public List<LogEntry> getDailyLog(UserContext user, LocalDate date) {
         if (date == null) {
             return Collections.emptyList();
         }
-        return new ArrayList<>(storage.getDailyLog().getEntries().getOrDefault(date, Collections.emptyList()));
+        return readDay(user, date, () -> storage.getLogStore(user).entries(date));
     }
     
-    public boolean removeLogEntry(LocalDate date, String foodId, double servings) {
-        List<LogEntry> entries = storage.getDailyLog().getEntries().get(date);
-        if (entries == null) {
+    public boolean removeLogEntry(UserContext user, LocalDate date, String foodId, double servings) {
+        if (date == null) {
             return false;
         }
         
-        LogEntry toRemove = new LogEntry();
-        toRemove.setFoodId(foodId);
-        toRemove.setServings(servings);
-        
-        boolean removed = entries.remove(toRemove);
-        if (removed) {
-            // Add undo operation to restore the entry
-            undoStack.push(() -> entries.add(toRemove));
-            storage.saveDailyLogs();
-        }
-        return removed;
+        return writeTimer.record(() -> changeDay(user, date, () -> {
+            boolean removed = storage.applyLogMutation(user, LogMutation.remove(date, foodId, servings));
+            if (removed) {
+                // Add undo operation to restore the entry
+                storage.getUndoJournal(user).record(List.of(LogMutation.remove(date, foodId, servings)));
+            }
+            return removed;
+        }));
     }
     
-    public boolean clearDailyLog(LocalDate date) {
-        List<LogEntry> entries = storage.getDailyLog().getEntries().get(date);
-        if (entries == null || entries.isEmpty()) {
+    public boolean clearDailyLog(UserContext user, LocalDate date) {
+        if (date == null) {
             return false;
         }
-        
-        // Store copy for undo
-        List<LogEntry> entriesCopy = new ArrayList<>(entries);
-        entries.clear();
-        
-        // Add undo operation
-        undoStack.push(() -> storage.getDailyLog().getEntries().put(date, entriesCopy));
-        
-        storage.saveDailyLogs();
-        return true;
+        return writeTimer.record(() -> changeDay(user, date, () -> {
+            // Store copy for undo
+            List<LogEntry> entriesCopy = storage.getLogStore(user).entries(date);
+            if (entriesCopy.isEmpty()) {
+                return false;
+            }
+            storage.applyLogMutation(user, LogMutation.clear(date));
+
+            // Add undo operation: one removal per entry, last first, so undoing
+            // re-adds them in their original order
+            List<LogMutation> removals = new ArrayList<>(entriesCopy.size());
+            for (int i = entriesCopy.size() - 1; i >= 0; i--) {
+                LogEntry e = entriesCopy.get(i);
+                removals.add(LogMutation.remove(date, e.getFoodId(), e.getServings()));
+            }
+            storage.getUndoJournal(user).record(removals);
+            return true;
+        }));
     }
     
-    public int calculateDailyCalories(LocalDate date) {
-        List<LogEntry> entries = getDailyLog(date);
-        return entries.stream()
-                .mapToInt(entry -> foodService.calculateCalories(entry.getFoodId(), entry.getServings()))
-                .sum();
+    public int calculateDailyCalories(UserContext user, LocalDate date) {
+        if (date == null) {
+            return 0;
+        }
+        return caloriesTimer.record(() -> readDay(user, date, () -> state(user).ledger().dayCalories(date)));
     }
-    
-    public Map<String, Integer> getWeeklyCalories(LocalDate startDate) {
-        Map<String, Integer> weeklyCalories = new LinkedHashMap<>();
-        
-        for (int i = 0; i < 7; i++) {
-            LocalDate date = startDate.plusDays(i);
-            int calories = calculateDailyCalories(date);
-            weeklyCalories.put(date.toString(), calories);
+
+    // Inclusive range, answered from the ledger's prefix sums
+    public long calculateCalories(UserContext user, LocalDate startDate, LocalDate endDate) {
+        return caloriesTimer.record(() -> report(user, () -> state(user).ledger().rangeCalories(startDate, endDate)));
+    }
+
+    // Every nutrient for the day; calories match calculateDailyCalories
+    public NutrientTotals getDailyNutrients(UserContext user, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null!");
         }
-        
-        return weeklyCalories;
+        return caloriesTimer.record(() -> readDay(user, date,
+            () -> new NutrientTotals(state(user).ledger().dayTotal(date))));
+    }
+
+    // Inclusive range; calories match calculateCalories
+    public NutrientTotals calculateNutrients(UserContext user, LocalDate startDate, LocalDate endDate) {
+        return caloriesTimer.record(() -> report(user,
+            () -> new NutrientTotals(state(user).ledger().rangeTotal(startDate, endDate))));
+    }
+
+    public long calculateMonthlyCalories(UserContext user, YearMonth month) {
+        return calculateCalories(user, month.atDay(1), month.atEndOfMonth());
+    }
+
+    public long calculateYearlyCalories(UserContext user, Year year) {
+        return calculateCalories(user, year.atDay(1), year.atDay(year.length()));
     }
     
-    public Map<String, Double> getFoodFrequency(LocalDate startDate, LocalDate endDate) {
-        Map<String, Double> frequency = new HashMap<>();
-        
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            List<LogEntry> entries = getDailyLog(current);
-            for (LogEntry entry : entries) {
-                frequency.merge(entry.getFoodId(), entry.getServings(), Double::sum);
+    public Map<String, Integer> getWeeklyCalories(UserContext user, LocalDate startDate) {
+        return weeklyTimer.record(() -> report(user, () -> {
+            NutrientLedger ledger = state(user).ledger();
+            Map<String, Integer> weeklyCalories = new LinkedHashMap<>();
+
+            for (int i = 0; i < 7; i++) {
+                LocalDate date = startDate.plusDays(i);
+                int calories = ledger.dayCalories(date);
+                weeklyCalories.put(date.toString(), calories);
             }
-            current = current.plusDays(1);
-        }
-        
+
+            return weeklyCalories;
+        }));
+    }
+    
+    public Map<String, Double> getFoodFrequency(UserContext user, LocalDate startDate, LocalDate endDate) {
+        Map<String, Double> frequency = frequencyTimer.record(() -> report(user, () -> {
+            LogStore store = storage.getLogStore(user);
+            Map<String, Double> totalsById = new HashMap<>();
+            double[] totals = servingsPerFood(store, startDate, endDate);
+            for (int food = 0; food < totals.length; food++) {
+                if (totals[food] > 0) {
+                    totalsById.put(store.foodId(food), totals[food]);
+                }
+            }
+            return totalsById;
+        }));
+
         return frequency.entrySet().stream()
                 .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
                 .collect(Collectors.toMap(
@@ -128,33 +262,185 @@ public class LogService {
                 ));
     }
     
-    public List<LocalDate> getDatesWithLogs() {
-        return storage.getDailyLog().getEntries().keySet().stream()
-                .filter(date -> !storage.getDailyLog().getEntries().get(date).isEmpty())
-                .sorted()
-                .collect(Collectors.toList());
+    // The limit most eaten foods in the range, most servings first. A bounded
+    // min-heap keeps only the current top entries, so the rest are never sorted.
+    public Map<String, Double> getTopFoods(UserContext user, LocalDate startDate, LocalDate endDate, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive!");
+        }
+        return frequencyTimer.record(() -> report(user, () -> {
+            LogStore store = storage.getLogStore(user);
+            double[] totals = servingsPerFood(store, startDate, endDate);
+
+            PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(totals[a], totals[b]));
+            for (int food = 0; food < totals.length; food++) {
+                if (totals[food] <= 0) {
+                    continue;
+                }
+                if (heap.size() < limit) {
+                    heap.add(food);
+                } else if (totals[food] > totals[heap.peek()]) {
+                    heap.poll();
+                    heap.add(food);
+                }
+            }
+            Integer[] top = heap.toArray(new Integer[0]);
+            Arrays.sort(top, (a, b) -> Double.compare(totals[b], totals[a]));
+            Map<String, Double> topFoods = new LinkedHashMap<>();
+            for (int food : top) {
+                topFoods.put(store.foodId(food), totals[food]);
+            }
+            return topFoods;
+        }));
     }
-    
-    public int getTotalLoggedDays() {
-        return (int) storage.getDailyLog().getEntries().entrySet().stream()
-                .filter(entry -> !entry.getValue().isEmpty())
-                .count();
+
+    // Servings summed per food ordinal. Single-day changes run alongside reports,
+    // so a food first logged meanwhile can bring an ordinal past the initial size.
+    private static double[] servingsPerFood(LogStore store, LocalDate startDate, LocalDate endDate) {
+        double[][] totals = { new double[store.foodCount()] };
+        store.forEachEntry(startDate, endDate, (day, food, servings) -> {
+            if (food >= totals[0].length) {
+                totals[0] = Arrays.copyOf(totals[0], Math.max(food + 1, store.foodCount()));
+            }
+            totals[0][food] += servings;
+        });
+        return totals[0];
     }
 
-    public boolean undo() {
-        if (!undoStack.isEmpty()) {
-            undoStack.pop().run();
-            storage.saveDailyLogs();
-            return true;
+    // Lazy reports over [startDate, endDate]. Nothing is computed until the stream
+    // is consumed, and then one day at a time under the report lock, which is
+    // not held between days: each day is as of between two changes, but a change
+    // may land between two days of the stream. In exchange a multi-year range
+    // costs no more memory than a single day and never holds off writers.
+    public Stream<DailyCalories> streamDailyCalories(UserContext user, LocalDate startDate, LocalDate endDate) {
+        return days(startDate, endDate)
+            .map(date -> new DailyCalories(date, viewDay(user, date, () -> state(user).ledger().dayCalories(date))));
+    }
+
+    public Stream<LocalDate> streamDatesWithLogs(UserContext user, LocalDate startDate, LocalDate endDate) {
+        return days(startDate, endDate)
+            .filter(date -> viewDay(user, date, () -> storage.getLogStore(user).hasEntries(date)));
+    }
+
+    // Entries in date and then logging order, in the shape LogImportService reads
+    public Stream<FoodLogRequest> streamEntries(UserContext user, LocalDate startDate, LocalDate endDate) {
+        return days(startDate, endDate)
+            .flatMap(date -> viewDay(user, date, () -> storage.getLogStore(user).entries(date)).stream()
+                .map(entry -> new FoodLogRequest(date, entry.getFoodId(), entry.getServings())));
+    }
+
+    private static Stream<LocalDate> days(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Date range needs a start and an end!");
         }
-        return false;
+        return Stream.iterate(startDate, date -> !date.isAfter(endDate), date -> date.plusDays(1));
+    }
+
+    public List<LocalDate> getDatesWithLogs(UserContext user) {
+        return report(user, () -> storage.getLogStore(user).datesWithLogs());
     }
     
-    public int getUndoStackSize() {
-        return undoStack.size();
+    public int getTotalLoggedDays(UserContext user) {
+        return report(user, () -> storage.getLogStore(user).loggedDays());
+    }
+
+    public boolean undo(UserContext user) {
+        return undoTimer.record(() -> replay(user, UndoJournal::undo));
+    }
+
+    public boolean redo(UserContext user) {
+        return undoTimer.record(() -> replay(user, UndoJournal::redo));
+    }
+
+    public int getUndoStackSize(UserContext user) {
+        return storage.getUndoJournal(user).undoSize();
+    }
+
+    public int getRedoStackSize(UserContext user) {
+        return storage.getUndoJournal(user).redoSize();
     }
     
-    public void clearUndoStack() {
-        undoStack.clear();
+    public void clearUndoStack(UserContext user) {
+        storage.getUndoJournal(user).clear();
+    }
+
+    // Takes the next action off the journal and applies its mutations in one step
+    private boolean replay(UserContext user, Function<UndoJournal, List<LogMutation>> step) {
+        return compoundChange(user, () -> {
+            List<LogMutation> mutations = step.apply(storage.getUndoJournal(user));
+            if (mutations.size() == 1) {
+                storage.applyLogMutation(user, mutations.get(0));
+            } else if (!mutations.isEmpty()) {
+                storage.applyLogMutations(user, mutations);
+            }
+            return !mutations.isEmpty();
+        });
+    }
+
+    // Null if the user's state was built on another (evicted) store; it rebuilds anyway
+    private NutrientLedger ledger(UserContext user, LogStore store) {
+        UserLogState state = users.get(user);
+        return state != null && state.store() == store ? state.ledger() : null;
+    }
+
+    // The state for the user's currently loaded store, replacing one left over
+    // from a store that has since been evicted and reloaded
+    private UserLogState state(UserContext user) {
+        LogStore store = storage.getLogStore(user);
+        return users.compute(user, (key, state) -> state != null && state.store() == store
+            ? state
+            : new UserLogState(store, new NutrientLedger(store, foodService)));
+    }
+
+    private ReentrantLock dayLock(UserContext user, LocalDate date) {
+        int hash = 31 * user.hashCode() + Long.hashCode(date.toEpochDay());
+        return dayLocks[Math.floorMod(hash, LOCK_STRIPES)];
+    }
+
+    private ReentrantReadWriteLock userLock(UserContext user) {
+        return userLocks.computeIfAbsent(user, key -> new ReentrantReadWriteLock());
+    }
+
+    // Exclusive, so no report sees it land halfway through; the day lock keeps
+    // out single-day reads, which skip the user lock
+    private <T> T changeDay(UserContext user, LocalDate date, Supplier<T> change) {
+        return compoundChange(user, () -> readDay(user, date, change));
+    }
+
+    // A day as of between two actions: the shared report lock keeps out multi-day
+    // changes such as undo, which could otherwise be half applied to it
+    private <T> T viewDay(UserContext user, LocalDate date, Supplier<T> read) {
+        return report(user, () -> readDay(user, date, read));
+    }
+
+    private <T> T readDay(UserContext user, LocalDate date, Supplier<T> read) {
+        ReentrantLock lock = dayLock(user, date);
+        lock.lock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Shared with other reports; excludes every change
+    private <T> T report(UserContext user, Supplier<T> read) {
+        ReentrantReadWriteLock lock = userLock(user);
+        lock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T compoundChange(UserContext user, Supplier<T> change) {
+        ReentrantReadWriteLock lock = userLock(user);
+        lock.writeLock().lock();
+        try {
+            return change.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.example.yada.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.example.yada.repository.ColumnarLogStore;
+import com.example.yada.repository.FoodIndex;
+import com.example.yada.repository.LogMutation;
+import com.example.yada.repository.LogStore;
+
+// Per-day nutrient totals over epoch days, kept sparsely in blocks of 512
+// days that are created only where something is logged, so far-apart dates
+// cost two blocks rather than everything between them. Each block has a
+// Fenwick tree and a running total: a day is O(1) and a range is O(log 512)
+// at each end plus one add per block in between. Each day is one fixed-width
+// vector in a flat double[], and so is each tree node, so a sum moves whole
+// vectors rather than walking objects. A log mutation recomputes
+// just its day. A change to the food catalog forgets the vectors of the foods
+// it touched (the food and every composite using it) and the next query
+// recomputes only the days that log one of them. Day totals are always
+// recomputed from the store rather than adjusted by deltas, so listeners
+// racing on different threads still converge on the stored state. Calories are one projection of these vectors.
+class NutrientLedger {
+    private static final int BLOCK_BITS = 9;
+    private static final int BLOCK_DAYS = 1 << BLOCK_BITS;
+    private static final int WIDTH = NutrientVectors.WIDTH;
+    private static final int CALORIES = NutrientVectors.CALORIES;
+    private static final byte UNKNOWN = 0;
+    private static final byte RESOLVED = 1;
+    private static final byte MISSING = 2;
+
+    private final LogStore store;
+    private final FoodService foodService;
+    // Epoch day >> BLOCK_BITS -> that block's days
+    private final NavigableMap<Integer, Block> blocks = new TreeMap<>();
+    // Days with an entry whose food no longer resolves -> that food's id
+    private final Map<Integer, String> unresolved = new HashMap<>();
+    // Per-serving vector of each of the store's food ordinals, resolved at most
+    // once per catalog version
+    private double[] foodVectors = new double[0];
+    private byte[] foodStates = new byte[0];
+    private long builtVersion = -1;
+
+    // One ledger per user's store; LogService feeds it that store's mutations
+    NutrientLedger(LogStore store, FoodService foodService) {
+        this.store = store;
+        this.foodService = foodService;
+    }
+
+    // Days of one block; node i of the 1-based tree starts at i * WIDTH
+    private static final class Block {
+        final double[] days = new double[BLOCK_DAYS * WIDTH];
+        final double[] tree = new double[(BLOCK_DAYS + 1) * WIDTH];
+        final double[] total = new double[WIDTH];
+    }
+
+    synchronized double[] dayTotal(LocalDate date) {
+        ensureCurrent();
+        double[] total = new double[WIDTH];
+        int day = ColumnarLogStore.epochDay(date);
+        checkResolved(day, day);
+        Block block = blocks.get(day >> BLOCK_BITS);
+        if (block != null) {
+            System.arraycopy(block.days, offset(day), total, 0, WIDTH);
+        }
+        return total;
+    }
+
+    // Calorie projection: the same per-entry rounded int sum the log always reported
+    synchronized int dayCalories(LocalDate date) {
+        ensureCurrent();
+        int day = ColumnarLogStore.epochDay(date);
+        checkResolved(day, day);
+        Block block = blocks.get(day >> BLOCK_BITS);
+        return block == null ? 0 : (int) block.days[offset(day) + CALORIES];
+    }
+
+    // Inclusive range
+    synchronized double[] rangeTotal(LocalDate from, LocalDate to) {
+        ensureCurrent();
+        double[] total = new double[WIDTH];
+        int first = ColumnarLogStore.epochDay(from);
+        int last = ColumnarLogStore.epochDay(to);
+        if (first > last) {
+            return total;
+        }
+        checkResolved(first, last);
+        int firstBlock = first >> BLOCK_BITS;
+        int lastBlock = last >> BLOCK_BITS;
+        for (Map.Entry<Integer, Block> entry : blocks.subMap(firstBlock, true, lastBlock, true).entrySet()) {
+            Block block = entry.getValue();
+            int lo = entry.getKey() == firstBlock ? first & (BLOCK_DAYS - 1) : 0;
+            int hi = entry.getKey() == lastBlock ? last & (BLOCK_DAYS - 1) : BLOCK_DAYS - 1;
+            if (lo == 0 && hi == BLOCK_DAYS - 1) {
+                NutrientVectors.add(total, 0, block.total, 0);
+            } else {
+                prefix(block, hi, total, true);
+                prefix(block, lo - 1, total, false);
+            }
+        }
+        return total;
+    }
+
+    synchronized long rangeCalories(LocalDate from, LocalDate to) {
+        return (long) rangeTotal(from, to)[CALORIES];
+    }
+
+    synchronized void onMutation(LogMutation mutation) {
+        // Still stale from a catalog change; the next query rebuilds anyway
+        if (builtVersion == foodService.getCatalogVersion()) {
+            refreshDay(ColumnarLogStore.epochDay(mutation.getDate()));
+        }
+    }
+
+    // Each touched day once, however many entries the batch put on it
+    synchronized void onBatch(List<LogMutation> mutations) {
+        if (builtVersion == foodService.getCatalogVersion()) {
+            mutations.stream().mapToInt(m -> ColumnarLogStore.epochDay(m.getDate())).distinct()
+                .forEach(this::refreshDay);
+        }
+    }
+
+    private static int offset(int day) {
+        return (day & (BLOCK_DAYS - 1)) * WIDTH;
+    }
+
+    private void ensureCurrent() {
+        long version = foodService.getCatalogVersion();
+        if (builtVersion == version) {
+            return;
+        }
+        Set<String> changed = builtVersion < 0 ? null : foodService.changedSince(builtVersion);
+        if (changed == null) {
+            rebuild();
+        } else {
+            refreshFoods(changed);
+        }
+        builtVersion = version;
+    }
+
+    // Forgets the changed foods' vectors and recomputes just the days logging them
+    private void refreshFoods(Set<String> changed) {
+        BitSet foods = new BitSet();
+        for (int food = 0; food < store.foodCount(); food++) {
+            if (changed.contains(FoodIndex.key(store.foodId(food)))) {
+                foods.set(food);
+                if (food < foodStates.length) {
+                    foodStates[food] = UNKNOWN;
+                }
+            }
+        }
+        if (foods.isEmpty()) {
+            return;
+        }
+        Set<Integer> days = new HashSet<>();
+        store.forEachEntry(LocalDate.MIN, LocalDate.MAX, (day, food, servings) -> {
+            if (foods.get(food)) {
+                days.add(day);
+            }
+        });
+        days.forEach(this::refreshDay);
+    }
+
+    private void rebuild() {
+        blocks.clear();
+        Arrays.fill(foodStates, UNKNOWN);
+        unresolved.clear();
+        store.forEachEntry(LocalDate.MIN, LocalDate.MAX, (day, food, servings) -> {
+            Block block = blocks.computeIfAbsent(day >> BLOCK_BITS, b -> new Block());
+            if (!unresolved.containsKey(day) && !accumulate(block.days, offset(day), food, servings)) {
+                unresolved.put(day, store.foodId(food));
+            }
+        });
+        unresolved.keySet().forEach(day -> Arrays.fill(blocks.get(day >> BLOCK_BITS).days,
+            offset(day), offset(day) + WIDTH, 0));
+        blocks.values().forEach(NutrientLedger::rebuildTree);
+    }
+
+    private void refreshDay(int day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        double[] total = new double[WIDTH];
+        unresolved.remove(day);
+        store.forEachEntry(date, date, (d, food, servings) -> {
+            if (!unresolved.containsKey(day) && !accumulate(total, 0, food, servings)) {
+                unresolved.put(day, store.foodId(food));
+            }
+        });
+        if (unresolved.containsKey(day)) {
+            Arrays.fill(total, 0);
+        }
+        set(day, total);
+    }
+
+    // Adds one entry's vector; false if its food no longer resolves. Calories
+    // round per entry, as FoodService.calculateCalories does.
+    private boolean accumulate(double[] into, int at, int food, double servings) {
+        int from = foodVector(food);
+        if (from < 0) {
+            return false;
+        }
+        double calories = into[at + CALORIES];
+        NutrientVectors.addScaled(into, at, foodVectors, from, servings);
+        into[at + CALORIES] = calories + Math.round(foodVectors[from + CALORIES] * servings);
+        return true;
+    }
+
+    // Offset of the food's vector in foodVectors, or -1 if it is not in the catalog
+    private int foodVector(int food) {
+        if (food >= foodStates.length) {
+            int capacity = Math.max(food + 1, Math.max(16, foodStates.length * 2));
+            foodStates = Arrays.copyOf(foodStates, capacity);
+            foodVectors = Arrays.copyOf(foodVectors, capacity * WIDTH);
+        }
+        if (foodStates[food] == UNKNOWN) {
+            try {
+                System.arraycopy(foodService.nutrientsPerServing(store.foodId(food)), 0,
+                    foodVectors, food * WIDTH, WIDTH);
+                foodStates[food] = RESOLVED;
+            } catch (IllegalArgumentException e) {
+                foodStates[food] = MISSING;
+            }
+        }
+        return foodStates[food] == RESOLVED ? food * WIDTH : -1;
+    }
+
+    // Same failure calculateDailyCalories had when a logged food was deleted
+    private void checkResolved(int firstDay, int lastDay) {
+        for (Map.Entry<Integer, String> entry : unresolved.entrySet()) {
+            if (entry.getKey() >= firstDay && entry.getKey() <= lastDay) {
+                throw new IllegalArgumentException("Food with ID '" + entry.getValue() + "' not found!");
+            }
+        }
+    }
+
+    private void set(int day, double[] total) {
+        Block block = blocks.get(day >> BLOCK_BITS);
+        if (block == null) {
+            if (NutrientVectors.equal(total, 0, new double[WIDTH], 0)) {
+                return;
+            }
+            block = new Block();
+            blocks.put(day >> BLOCK_BITS, block);
+        }
+        int at = offset(day);
+        if (NutrientVectors.equal(block.days, at, total, 0)) {
+            return;
+        }
+        double[] delta = total.clone();
+        NutrientVectors.subtract(delta, 0, block.days, at);
+        System.arraycopy(total, 0, block.days, at, WIDTH);
+        NutrientVectors.add(block.total, 0, delta, 0);
+        for (int i = (day & (BLOCK_DAYS - 1)) + 1; i <= BLOCK_DAYS; i += i & -i) {
+            NutrientVectors.add(block.tree, i * WIDTH, delta, 0);
+        }
+    }
+
+    // Linear-time Fenwick construction, plus the block's total
+    private static void rebuildTree(Block block) {
+        Arrays.fill(block.tree, 0);
+        Arrays.fill(block.total, 0);
+        for (int i = 1; i <= BLOCK_DAYS; i++) {
+            NutrientVectors.add(block.tree, i * WIDTH, block.days, (i - 1) * WIDTH);
+            NutrientVectors.add(block.total, 0, block.days, (i - 1) * WIDTH);
+            int parent = i + (i & -i);
+            if (parent <= BLOCK_DAYS) {
+                NutrientVectors.add(block.tree, parent * WIDTH, block.tree, i * WIDTH);
+            }
+        }
+    }
+
+    // Adds (or subtracts) the sum of the block's days [0..index] into total
+    private static void prefix(Block block, int index, double[] total, boolean add) {
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            if (add) {
+                NutrientVectors.add(total, 0, block.tree, i * WIDTH);
+            } else {
+                NutrientVectors.subtract(total, 0, block.tree, i * WIDTH);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.yada.service;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.Nutrient;
+
+// Arithmetic on fixed-width nutrient vectors stored at an offset in a flat
+// double[]. Loops are unrolled four slots at a time, a shape the JIT turns
+// into straight-line (and, where it can, SIMD) code.
+final class NutrientVectors {
+    static final int WIDTH = Nutrient.COUNT;
+    static final int CALORIES = Nutrient.CALORIES.ordinal();
+
+    private NutrientVectors() {
+    }
+
+    // Per serving, with the calories slot taken from caloriesPerServing
+    static double[] of(BasicFood food) {
+        double[] vector = food.getNutrients() == null ? new double[WIDTH] : food.getNutrients().clone();
+        vector[CALORIES] = food.getCaloriesPerServing();
+        return vector;
+    }
+
+    // into[at..] += from[fromAt..] * factor
+    static void addScaled(double[] into, int at, double[] from, int fromAt, double factor) {
+        int i = 0;
+        for (; i + 3 < WIDTH; i += 4) {
+            into[at + i] += from[fromAt + i] * factor;
+            into[at + i + 1] += from[fromAt + i + 1] * factor;
+            into[at + i + 2] += from[fromAt + i + 2] * factor;
+            into[at + i + 3] += from[fromAt + i + 3] * factor;
+        }
+        for (; i < WIDTH; i++) {
+            into[at + i] += from[fromAt + i] * factor;
+        }
+    }
+
+    // into[at..] += from[fromAt..]
+    static void add(double[] into, int at, double[] from, int fromAt) {
+        int i = 0;
+        for (; i + 3 < WIDTH; i += 4) {
+            into[at + i] += from[fromAt + i];
+            into[at + i + 1] += from[fromAt + i + 1];
+            into[at + i + 2] += from[fromAt + i + 2];
+            into[at + i + 3] += from[fromAt + i + 3];
+        }
+        for (; i < WIDTH; i++) {
+            into[at + i] += from[fromAt + i];
+        }
+    }
+
+    // into[at..] -= from[fromAt..]
+    static void subtract(double[] into, int at, double[] from, int fromAt) {
+        int i = 0;
+        for (; i + 3 < WIDTH; i += 4) {
+            into[at + i] -= from[fromAt + i];
+            into[at + i + 1] -= from[fromAt + i + 1];
+            into[at + i + 2] -= from[fromAt + i + 2];
+            into[at + i + 3] -= from[fromAt + i + 3];
+        }
+        for (; i < WIDTH; i++) {
+            into[at + i] -= from[fromAt + i];
+        }
+    }
+
+    static boolean equal(double[] a, int aAt, double[] b, int bAt) {
+        for (int i = 0; i < WIDTH; i++) {
+            if (Double.compare(a[aAt + i], b[bAt + i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,38 +1,117 @@
 package com.example.yada.service;
 
+import com.example.yada.model.UserContext;
 import com.example.yada.model.UserProfile;
 import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.calorie.BatchCalorieEngine;
 import com.example.yada.service.calorie.CalorieCalculator;
+import com.example.yada.service.calorie.CalorieMethod;
+import com.example.yada.service.calorie.ProfileBatch;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class UserProfileService {
     private final JsonDataStorage storage;
-    private final CalorieCalculator calorieCalculator;
+    // Calculator beans by name, picked per profile from its calorieMethod
+    private final Map<String, CalorieCalculator> calculators;
+    private final BatchCalorieEngine batchEngine = new BatchCalorieEngine();
 
     @Autowired
-    public UserProfileService(
-        JsonDataStorage storage,
-        @Qualifier("harrisBenedict") CalorieCalculator calorieCalculator
-    ) {
+    public UserProfileService(JsonDataStorage storage, Map<String, CalorieCalculator> calculators) {
         this.storage = storage;
-        this.calorieCalculator = calorieCalculator;
+        this.calculators = calculators;
     }
 
-    public void updateProfile(String gender, double height, double weight, 
+    public void updateProfile(UserContext user, String gender, double height, double weight, 
                              int age, String activityLevel) {
-        UserProfile profile = storage.getUserProfile();
-        profile.setGender(gender);
-        profile.setHeight(height);
-        profile.setWeight(weight);
-        profile.setAge(age);
-        profile.setActivityLevel(activityLevel);
-        storage.saveUserProfile(); 
+        updateProfile(user, gender, height, weight, age, activityLevel, null);
     }
 
-    public double calculateTargetCalories() {
-        return calorieCalculator.calculate(storage.getUserProfile());
+    // All fields in one change; the calorie method is checked before anything is
+    // written, and a null one is left as it was
+    public void updateProfile(UserContext user, String gender, double height, double weight,
+                              int age, String activityLevel, String calorieMethod) {
+        String method = calorieMethod == null ? null : CalorieMethod.of(calorieMethod).displayName();
+        storage.updateUserProfile(user, profile -> {
+            profile.setGender(gender);
+            profile.setHeight(height);
+            profile.setWeight(weight);
+            profile.setAge(age);
+            profile.setActivityLevel(activityLevel);
+            if (method != null) {
+                profile.setCalorieMethod(method);
+            }
+        });
+    }
+
+    public void setCalorieMethod(UserContext user, String method) {
+        CalorieMethod calorieMethod = CalorieMethod.of(method);
+        storage.updateUserProfile(user, profile -> profile.setCalorieMethod(calorieMethod.displayName()));
+    }
+
+    // A copy, so callers can't change the profile behind the storage's back
+    public UserProfile getProfile(UserContext user) {
+        return copy(storage.getUserProfile(user));
+    }
+
+    private static UserProfile copy(UserProfile profile) {
+        synchronized (profile) {
+            UserProfile copy = new UserProfile();
+            copy.setGender(profile.getGender());
+            copy.setHeight(profile.getHeight());
+            copy.setAge(profile.getAge());
+            copy.setWeight(profile.getWeight());
+            copy.setActivityLevel(profile.getActivityLevel());
+            copy.setCalorieMethod(profile.getCalorieMethod());
+            return copy;
+        }
+    }
+
+    public double calculateTargetCalories(UserContext user) {
+        UserProfile profile = getProfile(user);
+        if (profile.getGender() == null || profile.getActivityLevel() == null) {
+            throw new IllegalStateException("Set a user profile first!");
+        }
+        CalorieMethod method = CalorieMethod.of(profile.getCalorieMethod());
+        CalorieCalculator calculator = calculators.get(method.beanName());
+        if (calculator == null) {
+            throw new IllegalStateException("No calculator for " + method.displayName() + "!");
+        }
+        return calculator.calculate(profile);
+    }
+
+    // Targets for many users at once through the batch engine, e.g. for a nightly
+    // recomputation; users without a complete profile, or with one naming an
+    // unknown gender, activity level or calorie method, are left out. Profiles
+    // are read without loading the users' shards.
+    public Map<UserContext, Double> calculateTargetCalories(Collection<UserContext> users) {
+        List<UserContext> included = new ArrayList<>(users.size());
+        ProfileBatch batch = new ProfileBatch(users.size());
+        for (UserContext user : users) {
+            UserProfile profile = copy(storage.loadUserProfile(user));
+            if (profile.getGender() == null || profile.getActivityLevel() == null) {
+                continue;
+            }
+            try {
+                batch.add(profile);
+            } catch (IllegalArgumentException e) {
+                // Profile files are hand-editable; one bad value must not stop the rest
+                System.out.println("Skipping user " + user.getUserId() + ": " + e.getMessage());
+                continue;
+            }
+            included.add(user);
+        }
+        double[] targets = batchEngine.calculate(batch);
+        Map<UserContext, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < included.size(); i++) {
+            result.put(included.get(i), targets[i]);
+        }
+        return result;
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.yada.service.calorie;
+
+import java.util.Locale;
+
+public enum ActivityLevel {
+    SEDENTARY(1.2),
+    LIGHT(1.375),
+    MODERATE(1.55),
+    ACTIVE(1.725);
+
+    private final double multiplier;
+
+    ActivityLevel(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    public double multiplier() {
+        return multiplier;
+    }
+
+    // Unknown levels count as sedentary
+    public static ActivityLevel of(String level) {
+        if (level == null) {
+            return SEDENTARY;
+        }
+        return switch (level.toLowerCase(Locale.ROOT)) {
+            case "light" -> LIGHT;
+            case "moderate" -> MODERATE;
+            case "active" -> ACTIVE;
+            default -> SEDENTARY;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.yada.service.calorie;
+
+// Daily calorie targets for a whole ProfileBatch in one pass. Both formulas are
+// linear in weight, height and age, so each (method, gender) pair is a row of
+// four coefficients and every profile is the same branch-free multiply-add over
+// primitive columns, whichever method it asked for.
+public class BatchCalorieEngine {
+    private static final int GENDERS = Gender.values().length;
+    // Indexed by method * GENDERS + gender
+    private static final double[] BASE = new double[CalorieMethod.values().length * GENDERS];
+    private static final double[] PER_KG = new double[BASE.length];
+    private static final double[] PER_CM = new double[BASE.length];
+    private static final double[] PER_YEAR = new double[BASE.length];
+    private static final double[] MULTIPLIERS = new double[ActivityLevel.values().length];
+
+    static {
+        coefficients(CalorieMethod.HARRIS_BENEDICT, Gender.MALE, 88.362, 13.397, 4.799, 5.677);
+        coefficients(CalorieMethod.HARRIS_BENEDICT, Gender.FEMALE, 447.593, 9.247, 3.098, 4.330);
+        coefficients(CalorieMethod.MIFFLIN_ST_JEOR, Gender.MALE, 5, 10, 6.25, 5);
+        coefficients(CalorieMethod.MIFFLIN_ST_JEOR, Gender.FEMALE, -161, 10, 6.25, 5);
+        for (ActivityLevel level : ActivityLevel.values()) {
+            MULTIPLIERS[level.ordinal()] = level.multiplier();
+        }
+    }
+
+    private static void coefficients(CalorieMethod method, Gender gender, double base, double perKg,
+                                     double perCm, double perYear) {
+        int row = method.ordinal() * GENDERS + gender.ordinal();
+        BASE[row] = base;
+        PER_KG[row] = perKg;
+        PER_CM[row] = perCm;
+        PER_YEAR[row] = perYear;
+    }
+
+    public double[] calculate(ProfileBatch batch) {
+        double[] targets = new double[batch.size()];
+        calculate(batch, targets);
+        return targets;
+    }
+
+    // Writes the target of row i into targets[i]
+    public void calculate(ProfileBatch batch, double[] targets) {
+        int n = batch.size();
+        if (targets.length < n) {
+            throw new IllegalArgumentException("Need room for " + n + " targets!");
+        }
+        double[] weights = batch.weights;
+        double[] heights = batch.heights;
+        int[] ages = batch.ages;
+        byte[] genders = batch.genders;
+        byte[] activities = batch.activities;
+        byte[] methods = batch.methods;
+        for (int i = 0; i < n; i++) {
+            int row = methods[i] * GENDERS + genders[i];
+            double bmr = BASE[row] + PER_KG[row] * weights[i] + PER_CM[row] * heights[i] - PER_YEAR[row] * ages[i];
+            targets[i] = bmr * MULTIPLIERS[activities[i]];
+        }
+    }
+
+    // The same evaluation for a single profile
+    static double calculate(CalorieMethod method, Gender gender, ActivityLevel activity,
+                            double weight, double height, int age) {
+        int row = method.ordinal() * GENDERS + gender.ordinal();
+        double bmr = BASE[row] + PER_KG[row] * weight + PER_CM[row] * height - PER_YEAR[row] * age;
+        return bmr * activity.multiplier();
+    }
+}
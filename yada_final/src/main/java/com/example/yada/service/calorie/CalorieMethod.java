@@ -0,0 +1,39 @@
+package com.example.yada.service.calorie;
+
+import java.util.Locale;
+
+// The formula named by UserProfile.calorieMethod, and the bean implementing it
+public enum CalorieMethod {
+    HARRIS_BENEDICT("HarrisBenedict", "harrisBenedict"),
+    MIFFLIN_ST_JEOR("MifflinStJeor", "mifflinStJeor");
+
+    private final String displayName;
+    private final String beanName;
+
+    CalorieMethod(String displayName, String beanName) {
+        this.displayName = displayName;
+        this.beanName = beanName;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public String beanName() {
+        return beanName;
+    }
+
+    // Ignores case and separators, so "mifflin-st-jeor" works too; null is the default
+    public static CalorieMethod of(String method) {
+        if (method == null) {
+            return HARRIS_BENEDICT;
+        }
+        String normalized = method.replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT);
+        for (CalorieMethod candidate : values()) {
+            if (candidate.displayName.toLowerCase(Locale.ROOT).equals(normalized)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown calorie method '" + method + "'!");
+    }
+}
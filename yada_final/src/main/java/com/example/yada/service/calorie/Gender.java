@@ -0,0 +1,10 @@
+package com.example.yada.service.calorie;
+
+public enum Gender {
+    MALE, FEMALE;
+
+    // Anything but "male" gets the female coefficients, as the calculators always did
+    public static Gender of(String gender) {
+        return "male".equalsIgnoreCase(gender) ? MALE : FEMALE;
+    }
+}
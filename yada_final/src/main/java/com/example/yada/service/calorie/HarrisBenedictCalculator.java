@@ -6,22 +6,8 @@ public class HarrisBenedictCalculator implements CalorieCalculator {
     // Change to package-private access
     @Override // Mandatory annotation to enforce override check
     public double calculate(UserProfile profile) {
-        // Correct implementation
-        double bmr = profile.getGender().equalsIgnoreCase("male") ?
-            88.362 + (13.397 * profile.getWeight()) 
-            + (4.799 * profile.getHeight()) - (5.677 * profile.getAge()) :
-            447.593 + (9.247 * profile.getWeight()) 
-            + (3.098 * profile.getHeight()) - (4.330 * profile.getAge());
-
-        return bmr * getActivityMultiplier(profile.getActivityLevel());
-    }
-    static double getActivityMultiplier(String level) {
-        return switch (level.toLowerCase()) {
-            case "sedentary" -> 1.2;
-            case "light" -> 1.375;
-            case "moderate" -> 1.55;
-            case "active" -> 1.725;
-            default -> 1.2;
-        };
+        // Shares its coefficients with BatchCalorieEngine, so both give the same target
+        return BatchCalorieEngine.calculate(CalorieMethod.HARRIS_BENEDICT, Gender.of(profile.getGender()),
+            ActivityLevel.of(profile.getActivityLevel()), profile.getWeight(), profile.getHeight(), profile.getAge());
     }
-}
\ No newline at end of file
+}
@@ -5,11 +5,7 @@ import com.example.yada.model.UserProfile;
 public class MifflinStJeorCalculator implements CalorieCalculator {
     @Override
     public double calculate(UserProfile profile) {
-        double bmr = (10 * profile.getWeight()) 
-                    + (6.25 * profile.getHeight()) 
-                    - (5 * profile.getAge()) 
-                    + (profile.getGender().equalsIgnoreCase("male") ? 5 : -161);
-
-        return bmr * HarrisBenedictCalculator.getActivityMultiplier(profile.getActivityLevel());
+        return BatchCalorieEngine.calculate(CalorieMethod.MIFFLIN_ST_JEOR, Gender.of(profile.getGender()),
+            ActivityLevel.of(profile.getActivityLevel()), profile.getWeight(), profile.getHeight(), profile.getAge());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.example.yada.service.calorie;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.example.yada.model.UserProfile;
+
+// Many profiles as parallel primitive columns. Gender, activity level and
+// calorie method are parsed into enum ordinals once, when a profile is added.
+public class ProfileBatch {
+    double[] weights;
+    double[] heights;
+    int[] ages;
+    byte[] genders;
+    byte[] activities;
+    byte[] methods;
+    private int size;
+
+    public ProfileBatch(int capacity) {
+        int initial = Math.max(1, capacity);
+        weights = new double[initial];
+        heights = new double[initial];
+        ages = new int[initial];
+        genders = new byte[initial];
+        activities = new byte[initial];
+        methods = new byte[initial];
+    }
+
+    public static ProfileBatch of(List<UserProfile> profiles) {
+        ProfileBatch batch = new ProfileBatch(profiles.size());
+        profiles.forEach(batch::add);
+        return batch;
+    }
+
+    // Returns the profile's row
+    public int add(UserProfile profile) {
+        return add(profile.getWeight(), profile.getHeight(), profile.getAge(), Gender.of(profile.getGender()),
+            ActivityLevel.of(profile.getActivityLevel()), CalorieMethod.of(profile.getCalorieMethod()));
+    }
+
+    public int add(double weight, double height, int age, Gender gender, ActivityLevel activity,
+                   CalorieMethod method) {
+        if (size == weights.length) {
+            grow();
+        }
+        weights[size] = weight;
+        heights[size] = height;
+        ages[size] = age;
+        genders[size] = (byte) gender.ordinal();
+        activities[size] = (byte) activity.ordinal();
+        methods[size] = (byte) method.ordinal();
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = weights.length * 2;
+        weights = Arrays.copyOf(weights, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        genders = Arrays.copyOf(genders, capacity);
+        activities = Arrays.copyOf(activities, capacity);
+        methods = Arrays.copyOf(methods, capacity);
+    }
+}
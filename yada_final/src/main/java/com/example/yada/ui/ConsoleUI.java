@@ -1,48 +1,74 @@
 package com.example.yada.ui;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import com.example.yada.metrics.YadaMetrics;
 import com.example.yada.model.LogEntry;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
 import com.example.yada.service.FoodService;
+import com.example.yada.service.LogExportService;
+import com.example.yada.service.LogImportService;
 import com.example.yada.service.LogService;
 import com.example.yada.service.UserProfileService;
 
+// Off in the server profile, where the HTTP API is the entry point
 @Component
+@ConditionalOnProperty(name = "yada.console.enabled", havingValue = "true", matchIfMissing = true)
 public class ConsoleUI implements CommandLineRunner {
     private final FoodService foodService;
     private final LogService logService;
     private final UserProfileService profileService;
+    private final LogImportService logImportService;
+    private final LogExportService logExportService;
+    private final YadaMetrics metrics;
     private final Scanner scanner = new Scanner(System.in);
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private UserContext user = UserContext.DEFAULT;
 
     public ConsoleUI(FoodService foodService, LogService logService,
-                    UserProfileService profileService) {
+                    UserProfileService profileService, LogImportService logImportService,
+                    LogExportService logExportService, YadaMetrics metrics) {
         this.foodService = foodService;
         this.logService = logService;
         this.profileService = profileService;
+        this.logImportService = logImportService;
+        this.logExportService = logExportService;
+        this.metrics = metrics;
     }
 
     @Override
     public void run(String... args) {
         while(true) {
-            System.out.println("\n=== YADA Diet Manager ===");
+            System.out.println("\n=== YADA Diet Manager (" + user.getUserId() + ") ===");
             System.out.println("1. Add Basic Food");
             System.out.println("2. Create Composite Food");
             System.out.println("3. Log Food Consumption");
-            System.out.println("4. View Daily Log");
-            System.out.println("5. Undo Last Action");
-            System.out.println("6. Set User Profile");
-            System.out.println("7. Show Calorie Target");
-            System.out.println("8. Exit");
+            System.out.println("4. Import Food Log (CSV/JSON file)");
+            System.out.println("5. Export Food Log (CSV/JSON lines file)");
+            System.out.println("6. View Daily Log");
+            System.out.println("7. Undo Last Action");
+            System.out.println("8. Redo Last Undo");
+            System.out.println("9. Set User Profile");
+            System.out.println("10. Show Calorie Target");
+            System.out.println("11. Switch User");
+            System.out.println("12. Show Stats");
+            System.out.println("13. Exit");
             System.out.print("Choose an option: ");
             
             int choice = getIntInput();
@@ -51,11 +77,16 @@ public class ConsoleUI implements CommandLineRunner {
                 case 1 -> addBasicFood();
                 case 2 -> createCompositeFood();
                 case 3 -> logFoodConsumption();
-                case 4 -> viewDailyLog();
-                case 5 -> undoLastAction();
-                case 6 -> setUserProfile();
-                case 7 -> showCalorieTarget();
-                case 8 -> System.exit(0);
+                case 4 -> importFoodLog();
+                case 5 -> exportFoodLog();
+                case 6 -> viewDailyLog();
+                case 7 -> undoLastAction();
+                case 8 -> redoLastUndo();
+                case 9 -> setUserProfile();
+                case 10 -> showCalorieTarget();
+                case 11 -> switchUser();
+                case 12 -> showStats();
+                case 13 -> System.exit(0);
                 default -> System.out.println("Invalid choice!");
             }
         }
@@ -70,9 +101,16 @@ public class ConsoleUI implements CommandLineRunner {
         
         System.out.print("Enter calories per serving: ");
         int calories = getIntInput();
+
+        System.out.print("Enter other nutrients per serving (format: protein=3.5, fat=1, ...; blank for none): ");
+        String nutrients = scanner.nextLine();
         
-        foodService.addBasicFood(id, List.of(keywords.split(",")), calories);
-        System.out.println("Food added successfully!");
+        try {
+            foodService.addBasicFood(id, List.of(keywords.split(",")), calories, parseNutrients(nutrients));
+            System.out.println("Food added successfully!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
     }
 
     private void createCompositeFood() {
@@ -106,20 +144,56 @@ public class ConsoleUI implements CommandLineRunner {
             System.out.print("Enter number of servings: ");
             double servings = getDoubleInput();
             
-            logService.logFood(date, foodId, servings);
+            logService.logFood(user, date, foodId, servings);
             System.out.println("Food logged successfully!");
         } catch (DateTimeParseException e) {
             System.out.println("Invalid date format. Please use yyyy-MM-dd.");
         }
     }
 
+    private void importFoodLog() {
+        System.out.print("Enter file path (.csv, .json or .jsonl): ");
+        String path = scanner.nextLine();
+        
+        try {
+            int count = logImportService.importFile(user, Paths.get(path.trim()));
+            System.out.println("Imported " + count + " entries. Undo reverts the whole import.");
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Could not read " + path + ": " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void exportFoodLog() {
+        System.out.print("Enter start date (yyyy-MM-dd): ");
+        String fromStr = scanner.nextLine();
+        System.out.print("Enter end date (yyyy-MM-dd): ");
+        String toStr = scanner.nextLine();
+        System.out.print("Enter file path (.csv, .json or .jsonl): ");
+        String path = scanner.nextLine();
+
+        try {
+            LocalDate from = LocalDate.parse(fromStr, dateFormatter);
+            LocalDate to = LocalDate.parse(toStr, dateFormatter);
+            long count = logExportService.exportFile(user, from, to, Paths.get(path.trim()));
+            System.out.println("Exported " + count + " entries.");
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. Please use yyyy-MM-dd.");
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Could not write " + path + ": " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     private void viewDailyLog() {
         System.out.print("Enter date to view (yyyy-MM-dd): ");
         String dateStr = scanner.nextLine();
         
         try {
             LocalDate date = LocalDate.parse(dateStr, dateFormatter);
-            List<LogEntry> entries = logService.getDailyLog(date);
+            List<LogEntry> entries = logService.getDailyLog(user, date);
             
             if(entries.isEmpty()) {
                 System.out.println("No entries for this date.");
@@ -131,19 +205,35 @@ public class ConsoleUI implements CommandLineRunner {
                 System.out.printf("- %s: %.1f servings%n", 
                     entry.getFoodId(), entry.getServings())
             );
+            NutrientTotals totals = logService.getDailyNutrients(user, date);
+            StringBuilder line = new StringBuilder("Totals:");
+            for (Nutrient nutrient : Nutrient.values()) {
+                line.append(String.format(" %s %.1f%s", nutrient.getKey(), totals.get(nutrient), nutrient.getUnit()));
+            }
+            System.out.println(line);
         } catch (DateTimeParseException e) {
             System.out.println("Invalid date format. Please use yyyy-MM-dd.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
         }
     }
 
     private void undoLastAction() {
-        if(logService.undo()) {
+        if(logService.undo(user)) {
             System.out.println("Last action undone successfully.");
         } else {
             System.out.println("Nothing to undo.");
         }
     }
 
+    private void redoLastUndo() {
+        if(logService.redo(user)) {
+            System.out.println("Last undo redone successfully.");
+        } else {
+            System.out.println("Nothing to redo.");
+        }
+    }
+
     private void setUserProfile() {
         System.out.print("Enter gender (male/female): ");
         String gender = scanner.nextLine();
@@ -160,19 +250,51 @@ public class ConsoleUI implements CommandLineRunner {
         System.out.print("Enter activity level (sedentary/light/moderate/active): ");
         String activityLevel = scanner.nextLine();
         
-        profileService.updateProfile(gender, height, weight, age, activityLevel);
-        System.out.println("Profile updated successfully!");
+        System.out.print("Enter calorie method (HarrisBenedict/MifflinStJeor, blank to keep): ");
+        String calorieMethod = scanner.nextLine();
+
+        try {
+            // Method first: it is the only field that can be rejected
+            if (!calorieMethod.isBlank()) {
+                profileService.setCalorieMethod(user, calorieMethod);
+            }
+            profileService.updateProfile(user, gender, height, weight, age, activityLevel);
+            System.out.println("Profile updated successfully!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
     }
 
     private void showCalorieTarget() {
         try {
-            double target = profileService.calculateTargetCalories();
+            double target = profileService.calculateTargetCalories(user);
             System.out.printf("Your daily calorie target: %.1f calories%n", target);
         } catch (IllegalStateException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
 
+    private void switchUser() {
+        System.out.print("Enter user ID: ");
+        try {
+            user = UserContext.of(scanner.nextLine());
+            System.out.println("Now logging as " + user.getUserId() + ".");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    private void showStats() {
+        System.out.println("\n=== Stats (" + user.getUserId() + ") ===");
+        System.out.println("Logged days: " + logService.getTotalLoggedDays(user));
+        System.out.println("Undo depth: " + logService.getUndoStackSize(user));
+        if (!metrics.isEnabled()) {
+            System.out.println("Metrics are disabled (yada.metrics.enabled=false).");
+            return;
+        }
+        metrics.report().forEach(System.out::println);
+    }
+
     // Helper methods
     private Map<String, Double> parseIngredients(String input) {
         Map<String, Double> ingredients = new HashMap<>();
@@ -192,6 +314,25 @@ public class ConsoleUI implements CommandLineRunner {
         return ingredients;
     }
 
+    private Map<Nutrient, Double> parseNutrients(String input) {
+        Map<Nutrient, Double> nutrients = new EnumMap<>(Nutrient.class);
+        if (input.isBlank()) {
+            return nutrients;
+        }
+        for (String pair : input.split(",")) {
+            String[] parts = pair.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid nutrient format: " + pair);
+            }
+            try {
+                nutrients.put(Nutrient.of(parts[0].trim()), Double.valueOf(parts[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number format in: " + pair);
+            }
+        }
+        return nutrients;
+    }
+
     private int getIntInput() {
         while(true) {
             try {
@@ -0,0 +1,227 @@
+package com.example.yada.ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.FoodService;
+import com.example.yada.service.LogExportService;
+import com.example.yada.service.LogService;
+import com.example.yada.service.UserProfileService;
+import com.example.yada.service.calorie.HarrisBenedictCalculator;
+import com.example.yada.service.calorie.MifflinStJeorCalculator;
+
+// One-shot commands for scripts, started with --headless. Storage and services
+// are wired by hand from application.properties, so no Spring context, shell or
+// web stack is loaded and the answer comes back in a fraction of a full boot.
+//
+//   --headless [--user=<id>] [--yada.storage.<key>=<value>...] <command> [args]
+public class HeadlessCli {
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: --headless [--user=<id>] [--yada.storage.<key>=<value>...] <command>",
+        "  log <date> <foodId> <servings>   log a food",
+        "  day <date>                       list a day's entries",
+        "  total <date>                     calories for a day",
+        "  range <from> <to>                calories for an inclusive range",
+        "  nutrients <from> [<to>]          every nutrient for a day or a range",
+        "  export <from> <to> [csv|jsonl]   stream the log to stdout",
+        "  target                           daily calorie target");
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    public HeadlessCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        // Storage reports what it loaded on System.out; keep stdout for results
+        PrintStream results = System.out;
+        System.setOut(System.err);
+        System.exit(new HeadlessCli(results, System.err).run(args));
+    }
+
+    // Returns the process exit code
+    public int run(String... args) {
+        Properties settings = defaults();
+        UserContext user = UserContext.DEFAULT;
+        List<String> command = new ArrayList<>();
+        try {
+            for (String arg : args) {
+                if (arg.equals("--headless")) {
+                    continue;
+                }
+                if (arg.startsWith("--user=")) {
+                    user = UserContext.of(arg.substring("--user=".length()));
+                } else if (arg.startsWith("--") && arg.contains("=")) {
+                    int eq = arg.indexOf('=');
+                    settings.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+                } else {
+                    command.add(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return 2;
+        }
+        if (command.isEmpty()) {
+            err.println(USAGE);
+            return 2;
+        }
+
+        JsonDataStorage storage = new JsonDataStorage(storageProperties(settings));
+        try {
+            FoodService foodService = new FoodService(storage);
+            LogService logService = new LogService(storage, foodService);
+            return execute(command, user, logService, storage);
+        } catch (IllegalArgumentException | IllegalStateException | DateTimeParseException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            storage.saveAllData();
+        }
+    }
+
+    private int execute(List<String> command, UserContext user, LogService logService, JsonDataStorage storage)
+            throws IOException {
+        String name = command.get(0);
+        switch (name) {
+            case "log" -> {
+                expectArgs(command, 3);
+                LocalDate date = LocalDate.parse(command.get(1));
+                double servings = parseServings(command.get(3));
+                logService.logFood(user, date, command.get(2), servings);
+                out.println("Logged " + servings + " x " + command.get(2) + " on " + date + ".");
+            }
+            case "day" -> {
+                expectArgs(command, 1);
+                for (LogEntry entry : logService.getDailyLog(user, LocalDate.parse(command.get(1)))) {
+                    out.println(entry.getFoodId() + " " + entry.getServings());
+                }
+            }
+            case "total" -> {
+                expectArgs(command, 1);
+                out.println(logService.calculateDailyCalories(user, LocalDate.parse(command.get(1))));
+            }
+            case "range" -> {
+                expectArgs(command, 2);
+                out.println(logService.calculateCalories(user, LocalDate.parse(command.get(1)),
+                    LocalDate.parse(command.get(2))));
+            }
+            case "nutrients" -> {
+                if (command.size() != 2 && command.size() != 3) {
+                    throw new IllegalArgumentException("'nutrients' takes 1 or 2 arguments");
+                }
+                LocalDate from = LocalDate.parse(command.get(1));
+                LocalDate to = command.size() == 3 ? LocalDate.parse(command.get(2)) : from;
+                NutrientTotals totals = logService.calculateNutrients(user, from, to);
+                for (Nutrient nutrient : Nutrient.values()) {
+                    out.printf(Locale.ROOT, "%s %.1f %s%n", nutrient.getKey(), totals.get(nutrient), nutrient.getUnit());
+                }
+            }
+            case "export" -> {
+                if (command.size() != 3 && command.size() != 4) {
+                    throw new IllegalArgumentException("'export' takes 2 or 3 arguments");
+                }
+                LocalDate from = LocalDate.parse(command.get(1));
+                LocalDate to = LocalDate.parse(command.get(2));
+                String format = command.size() == 4 ? command.get(3) : "csv";
+                LogExportService exportService = new LogExportService(logService);
+                switch (format) {
+                    case "csv" -> exportService.exportCsv(user, from, to, out);
+                    case "jsonl" -> exportService.exportJsonLines(user, from, to, out);
+                    default -> throw new IllegalArgumentException("Unsupported export format '" + format + "'!");
+                }
+            }
+            case "target" -> {
+                expectArgs(command, 0);
+                UserProfileService profileService = new UserProfileService(storage, Map.of(
+                    "harrisBenedict", new HarrisBenedictCalculator(),
+                    "mifflinStJeor", new MifflinStJeorCalculator()));
+                out.printf("%.1f%n", profileService.calculateTargetCalories(user));
+            }
+            default -> {
+                err.println("Unknown command '" + name + "'!");
+                err.println(USAGE);
+                return 2;
+            }
+        }
+        return 0;
+    }
+
+    private static void expectArgs(List<String> command, int count) {
+        if (command.size() != count + 1) {
+            throw new IllegalArgumentException("'" + command.get(0) + "' takes " + count + " argument(s)");
+        }
+    }
+
+    private static double parseServings(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid servings '" + value + "'!");
+        }
+    }
+
+    // application.properties, then -D system properties on top
+    private static Properties defaults() {
+        Properties settings = new Properties();
+        try (InputStream in = HeadlessCli.class.getResourceAsStream("/application.properties")) {
+            if (in != null) {
+                settings.load(in);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith("yada.")) {
+                settings.setProperty(key.toString(), value.toString());
+            }
+        });
+        return settings;
+    }
+
+    // The same yada.storage keys Spring binds. Saves are synchronous and there is
+    // no idle eviction: the process ends right after the command.
+    static StorageProperties storageProperties(Properties settings) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(settings.getProperty("yada.storage.data-dir", properties.getDataDir()));
+        properties.setFormat(settings.getProperty("yada.storage.format", properties.getFormat()));
+        properties.setLogStore(settings.getProperty("yada.storage.log-store", properties.getLogStore()));
+        properties.setMaxMappedSegments(Integer.parseInt(settings.getProperty("yada.storage.max-mapped-segments",
+            String.valueOf(properties.getMaxMappedSegments()))));
+        StorageProperties.Journal journal = properties.getJournal();
+        journal.setEnabled(Boolean.parseBoolean(settings.getProperty("yada.storage.journal.enabled",
+            String.valueOf(journal.isEnabled()))));
+        journal.setFsyncBatchSize(Integer.parseInt(settings.getProperty("yada.storage.journal.fsync-batch-size",
+            String.valueOf(journal.getFsyncBatchSize()))));
+        journal.setCompactIntervalMs(Long.parseLong(settings.getProperty("yada.storage.journal.compact-interval-ms",
+            String.valueOf(journal.getCompactIntervalMs()))));
+        properties.getUndo().setMaxRecords(Integer.parseInt(settings.getProperty("yada.storage.undo.max-records",
+            String.valueOf(properties.getUndo().getMaxRecords()))));
+        StorageProperties.Catalog catalog = properties.getCatalog();
+        catalog.setDuplicates(settings.getProperty("yada.storage.catalog.duplicates", catalog.getDuplicates()));
+        catalog.setCanonicalize(Boolean.parseBoolean(settings.getProperty("yada.storage.catalog.canonicalize",
+            String.valueOf(catalog.isCanonicalize()))));
+        properties.getWriteBehind().setEnabled(false);
+        properties.getUsers().setIdleEvictMs(0);
+        return properties;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.yada.web;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.Nutrient;
+import com.example.yada.service.FoodService;
+
+// The shared food catalog. Reads carry an ETag derived from the catalog version,
+// so clients revalidate with If-None-Match and get 304 until the catalog changes.
+@RestController
+@RequestMapping("/api/foods")
+public class FoodController {
+    // Versions restart at zero with the process; the boot time keeps old tags from matching
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    private final FoodService foodService;
+
+    public FoodController(FoodService foodService) {
+        this.foodService = foodService;
+    }
+
+    @GetMapping("/basic")
+    public ResponseEntity<List<BasicFood>> getBasicFoods(WebRequest request) {
+        return conditional(request, foodService::getAllBasicFoods);
+    }
+
+    @GetMapping("/basic/{id}")
+    public ResponseEntity<BasicFood> getBasicFood(@PathVariable String id, WebRequest request) {
+        return conditional(request, () -> foodService.findFoodById(id)
+            .orElseThrow(() -> new NotFoundException("Food with ID '" + id + "' not found!")));
+    }
+
+    @PostMapping("/basic")
+    public ResponseEntity<BasicFood> addBasicFood(@RequestBody BasicFood food) {
+        foodService.addBasicFood(food.getId(), food.getKeywords(), food.getCaloriesPerServing(),
+            nutrients(food.getNutrients()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(food);
+    }
+
+    // The request's vector as FoodService takes it; the calories slot is unused
+    private static Map<Nutrient, Double> nutrients(double[] vector) {
+        Map<Nutrient, Double> nutrients = new EnumMap<>(Nutrient.class);
+        if (vector != null) {
+            for (Nutrient nutrient : Nutrient.values()) {
+                if (nutrient != Nutrient.CALORIES && vector[nutrient.ordinal()] != 0) {
+                    nutrients.put(nutrient, vector[nutrient.ordinal()]);
+                }
+            }
+        }
+        return nutrients;
+    }
+
+    @DeleteMapping("/basic/{id}")
+    public ResponseEntity<Void> deleteBasicFood(@PathVariable String id) {
+        if (!foodService.deleteBasicFood(id)) {
+            throw new NotFoundException("Food with ID '" + id + "' not found!");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/composite")
+    public ResponseEntity<List<CompositeFood>> getCompositeFoods(WebRequest request) {
+        return conditional(request, foodService::getAllCompositeFoods);
+    }
+
+    @GetMapping("/composite/{id}")
+    public ResponseEntity<CompositeFood> getCompositeFood(@PathVariable String id, WebRequest request) {
+        return conditional(request, () -> foodService.findCompositeFoodById(id)
+            .orElseThrow(() -> new NotFoundException("Composite food with ID '" + id + "' not found!")));
+    }
+
+    @PostMapping("/composite")
+    public ResponseEntity<CompositeFood> addCompositeFood(@RequestBody CompositeFood food) {
+        foodService.addCompositeFood(food.getId(), food.getKeywords(), food.getIngredients());
+        return ResponseEntity.status(HttpStatus.CREATED).body(food);
+    }
+
+    @DeleteMapping("/composite/{id}")
+    public ResponseEntity<Void> deleteCompositeFood(@PathVariable String id) {
+        if (!foodService.deleteCompositeFood(id)) {
+            throw new NotFoundException("Composite food with ID '" + id + "' not found!");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, List<?>>> search(@RequestParam String q, WebRequest request) {
+        return conditional(request, () -> Map.of(
+            "basic", foodService.searchBasicFoods(q),
+            "composite", foodService.searchCompositeFoods(q)));
+    }
+
+    @GetMapping("/{id}/calories")
+    public ResponseEntity<Map<String, Object>> calories(@PathVariable String id,
+            @RequestParam(defaultValue = "1") double servings, WebRequest request) {
+        return conditional(request, () -> Map.of(
+            "foodId", id, "servings", servings, "calories", foodService.calculateCalories(id, servings)));
+    }
+
+    // 304 without touching the catalog when the client's tag is current. The tag is
+    // read before the body, so a concurrent change can only make it stale, never newer.
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = "\"" + BOOT_ID + "-" + foodService.getCatalogVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.yada.web;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
+import com.example.yada.service.LogExportService;
+import com.example.yada.service.LogService;
+
+// One user's food log; the user id in the path becomes the UserContext
+@RestController
+@RequestMapping("/api/users/{userId}")
+public class LogController {
+    private final LogService logService;
+    private final LogExportService logExportService;
+
+    public LogController(LogService logService, LogExportService logExportService) {
+        this.logService = logService;
+        this.logExportService = logExportService;
+    }
+
+    @GetMapping("/logs/{date}")
+    public List<LogEntry> getDailyLog(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return logService.getDailyLog(UserContext.of(userId), date);
+    }
+
+    @PostMapping("/logs/{date}")
+    public ResponseEntity<LogEntry> logFood(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestBody LogEntry entry) {
+        logService.logFood(UserContext.of(userId), date, entry.getFoodId(), entry.getServings());
+        return ResponseEntity.status(HttpStatus.CREATED).body(entry);
+    }
+
+    // A whole batch as one action: all or nothing, one undo
+    @PostMapping("/logs")
+    public Map<String, Integer> logFoods(@PathVariable String userId, @RequestBody List<FoodLogRequest> entries) {
+        return Map.of("logged", logService.logFoods(UserContext.of(userId), entries));
+    }
+
+    @DeleteMapping("/logs/{date}/entries")
+    public ResponseEntity<Void> removeLogEntry(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam String foodId, @RequestParam double servings) {
+        if (!logService.removeLogEntry(UserContext.of(userId), date, foodId, servings)) {
+            throw new NotFoundException("No entry of '" + foodId + "' on " + date + "!");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/logs/{date}")
+    public ResponseEntity<Void> clearDailyLog(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (!logService.clearDailyLog(UserContext.of(userId), date)) {
+            throw new NotFoundException("No entries on " + date + "!");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/logs")
+    public List<LocalDate> getDatesWithLogs(@PathVariable String userId) {
+        return logService.getDatesWithLogs(UserContext.of(userId));
+    }
+
+    @GetMapping("/calories/{date}")
+    public Map<String, Object> getDailyCalories(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return Map.of("date", date, "calories", logService.calculateDailyCalories(UserContext.of(userId), date));
+    }
+
+    // Inclusive range
+    @GetMapping("/calories")
+    public Map<String, Object> getCalories(@PathVariable String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return Map.of("from", from, "to", to,
+            "calories", logService.calculateCalories(UserContext.of(userId), from, to));
+    }
+
+    @GetMapping("/nutrients/{date}")
+    public NutrientTotals getDailyNutrients(@PathVariable String userId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return logService.getDailyNutrients(UserContext.of(userId), date);
+    }
+
+    // Inclusive range
+    @GetMapping("/nutrients")
+    public NutrientTotals getNutrients(@PathVariable String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return logService.calculateNutrients(UserContext.of(userId), from, to);
+    }
+
+    @GetMapping("/calories/weekly")
+    public Map<String, Integer> getWeeklyCalories(@PathVariable String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start) {
+        return logService.getWeeklyCalories(UserContext.of(userId), start);
+    }
+
+    @GetMapping("/frequency")
+    public Map<String, Double> getFoodFrequency(@PathVariable String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer limit) {
+        UserContext user = UserContext.of(userId);
+        return limit == null
+            ? logService.getFoodFrequency(user, from, to)
+            : logService.getTopFoods(user, from, to, limit);
+    }
+
+    // Streamed to the client as it is read, a day at a time
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+        UserContext user = UserContext.of(userId);
+        boolean csv = format.equalsIgnoreCase("csv");
+        if (!csv && !format.equalsIgnoreCase("jsonl")) {
+            throw new IllegalArgumentException("Unsupported export format '" + format + "'!");
+        }
+        StreamingResponseBody body = out -> {
+            if (csv) {
+                logExportService.exportCsv(user, from, to, out);
+            } else {
+                logExportService.exportJsonLines(user, from, to, out);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(csv ? MediaType.parseMediaType("text/csv") : MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + userId + (csv ? ".csv" : ".jsonl") + "\"")
+            .body(body);
+    }
+
+    @PostMapping("/undo")
+    public Map<String, Boolean> undo(@PathVariable String userId) {
+        return Map.of("undone", logService.undo(UserContext.of(userId)));
+    }
+
+    @PostMapping("/redo")
+    public Map<String, Boolean> redo(@PathVariable String userId) {
+        return Map.of("redone", logService.redo(UserContext.of(userId)));
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.yada.web;
+
+// Mapped to 404 by ApiExceptionHandler
+public class NotFoundException extends RuntimeException {
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
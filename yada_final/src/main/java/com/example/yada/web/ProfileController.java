@@ -0,0 +1,42 @@
+package com.example.yada.web;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.yada.model.UserContext;
+import com.example.yada.model.UserProfile;
+import com.example.yada.service.UserProfileService;
+
+@RestController
+@RequestMapping("/api/users/{userId}")
+public class ProfileController {
+    private final UserProfileService profileService;
+
+    public ProfileController(UserProfileService profileService) {
+        this.profileService = profileService;
+    }
+
+    @GetMapping("/profile")
+    public UserProfile getProfile(@PathVariable String userId) {
+        return profileService.getProfile(UserContext.of(userId));
+    }
+
+    @PutMapping("/profile")
+    public UserProfile updateProfile(@PathVariable String userId, @RequestBody UserProfile profile) {
+        UserContext user = UserContext.of(userId);
+        profileService.updateProfile(user, profile.getGender(), profile.getHeight(), profile.getWeight(),
+            profile.getAge(), profile.getActivityLevel(), profile.getCalorieMethod());
+        return profileService.getProfile(user);
+    }
+
+    @GetMapping("/target-calories")
+    public Map<String, Double> getTargetCalories(@PathVariable String userId) {
+        return Map.of("calories", profileService.calculateTargetCalories(UserContext.of(userId)));
+    }
+}
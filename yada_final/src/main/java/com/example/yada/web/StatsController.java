@@ -0,0 +1,23 @@
+package com.example.yada.web;
+
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.yada.metrics.YadaMetrics;
+
+// In-process metrics as flat name -> value pairs; timer values are in milliseconds
+@RestController
+public class StatsController {
+    private final YadaMetrics metrics;
+
+    public StatsController(YadaMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/api/stats")
+    public Map<String, Number> getStats() {
+        return metrics.snapshot();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.yada;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Writes synthetic data files in the on-disk JSON format, streamed so large
+// catalogs never have to exist as objects in the generating JVM
+public final class SyntheticData {
+    private static final String[] KEYWORDS = {
+        "fruit", "snack", "vegetable", "dairy", "meat", "grain", "drink", "dessert",
+        "breakfast", "lunch", "dinner", "spicy", "sweet", "vegan", "protein"
+    };
+
+    private SyntheticData() {
+    }
+
+    public static String basicId(int i) {
+        return "food_" + i;
+    }
+
+    public static String compositeId(int i) {
+        return "recipe_" + i;
+    }
+
+    public static void writeBasicFoods(Path file, int count, long seed) {
+        Random random = new Random(seed);
+        write(file, out -> {
+            out.write('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write("{\"id\":\"" + basicId(i) + "\",\"keywords\":[\""
+                    + KEYWORDS[random.nextInt(KEYWORDS.length)] + "\",\""
+                    + KEYWORDS[random.nextInt(KEYWORDS.length)] + "\"],\"caloriesPerServing\":"
+                    + (20 + random.nextInt(800)) + "}");
+            }
+            out.write(']');
+        });
+    }
+
+    // Each recipe uses fanOut basic foods plus the previous recipe, building chains
+    // of the given depth
+    public static void writeCompositeFoods(Path file, int count, int depth, int fanOut, int basicCount, long seed) {
+        Random random = new Random(seed);
+        write(file, out -> {
+            out.write('[');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                StringBuilder ingredients = new StringBuilder();
+                for (int j = 0; j < fanOut; j++) {
+                    if (j > 0) {
+                        ingredients.append(',');
+                    }
+                    ingredients.append('"').append(basicId(random.nextInt(basicCount))).append("\":")
+                        .append(1 + random.nextInt(3));
+                }
+                if (i % depth != 0) {
+                    ingredients.append(",\"").append(compositeId(i - 1)).append("\":1.0");
+                }
+                out.write("{\"id\":\"" + compositeId(i) + "\",\"keywords\":[\""
+                    + KEYWORDS[random.nextInt(KEYWORDS.length)] + "\"],\"ingredients\":{"
+                    + ingredients + "}}");
+            }
+            out.write(']');
+        });
+    }
+
+    public static void writeDailyLogs(Path file, LocalDate start, int days, int entriesPerDay,
+                                      int basicCount, long seed) {
+        Random random = new Random(seed);
+        write(file, out -> {
+            out.write("{\"entries\":{");
+            for (int d = 0; d < days; d++) {
+                if (d > 0) {
+                    out.write(',');
+                }
+                out.write("\"" + start.plusDays(d) + "\":[");
+                for (int e = 0; e < entriesPerDay; e++) {
+                    if (e > 0) {
+                        out.write(',');
+                    }
+                    out.write("{\"foodId\":\"" + basicId(random.nextInt(basicCount))
+                        + "\",\"servings\":" + (1 + random.nextInt(4)) * 0.5 + "}");
+                }
+                out.write(']');
+            }
+            out.write("},\"journalSequence\":0}");
+        });
+    }
+
+    private interface Body {
+        void write(Writer out) throws IOException;
+    }
+
+    private static void write(Path file, Body body) {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            body.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.example.yada;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest(classes = YadaApplication.class)
+// Console and shell off so the context doesn't block on stdin; data kept out of the source tree
+@SpringBootTest(classes = YadaApplication.class, properties = {
+    "yada.console.enabled=false",
+    "spring.shell.interactive.enabled=false",
+    "yada.storage.data-dir=target/test-data/context/"
+})
 class YadaApplicationTests {
     @Test
     void contextLoads() {
     }
-}
\ No newline at end of file
+}
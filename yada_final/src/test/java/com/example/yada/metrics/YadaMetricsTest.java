@@ -0,0 +1,109 @@
+package com.example.yada.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.FoodService;
+import com.example.yada.service.LogService;
+
+class YadaMetricsTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void histogramPercentilesStayWithinABucket() {
+        Histogram histogram = new Histogram();
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1000);
+        assertThat(histogram.getMean()).isEqualTo(500.5);
+        assertThat(histogram.percentile(0.5)).isBetween(500L, 625L);
+        assertThat(histogram.percentile(0.99)).isBetween(990L, 1000L);
+        for (long v : new long[] {0, 3, 4, 7, 8, 1023, 1024, Long.MAX_VALUE}) {
+            assertThat(Histogram.upperBound(Histogram.bucket(v))).isGreaterThanOrEqualTo(v);
+        }
+    }
+
+    @Test
+    void instrumentedServicesRecordOperations() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        YadaMetrics metrics = new YadaMetrics(true, ObservationRegistry.NOOP);
+        storage.getMetrics().bind(metrics);
+        metrics.gauge("log.days", storage::getActiveLoggedDays);
+        metrics.gauge("undo.depth", storage::getActiveUndoDepth);
+        FoodService foodService = new FoodService(storage, metrics);
+        LogService logService = new LogService(storage, foodService, metrics);
+
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        foodService.addCompositeFood("toast", List.of("breakfast"), Map.of("bread", 1.0));
+        foodService.addCompositeFood("brunch", List.of("breakfast"), Map.of("toast", 2.0));
+        foodService.calculateCalories("brunch", 1);
+        foodService.calculateCalories("brunch", 2);
+        foodService.searchBasicFoods("bakery");
+        logService.logFood(UserContext.DEFAULT, LocalDate.of(2026, 10, 1), "bread", 1);
+
+        Map<String, Number> stats = metrics.snapshot();
+        assertThat(stats.get("food.calories.count")).isEqualTo(2L);
+        assertThat(stats.get("food.search.count")).isEqualTo(1L);
+        assertThat(stats.get("calories.cache.misses")).isEqualTo(1L);
+        assertThat(stats.get("calories.cache.hits")).isEqualTo(1L);
+        assertThat(stats.get("calories.recursion.depth.max")).isEqualTo(2L);
+        assertThat(stats.get("food.catalog.size")).isEqualTo(3L);
+        assertThat(stats.get("log.write.count")).isEqualTo(1L);
+        assertThat(stats.get("log.days")).isEqualTo(1L);
+        assertThat(stats.get("undo.depth")).isEqualTo(1L);
+        assertThat(stats.get("storage.flushes").longValue()).isPositive();
+        assertThat(stats.get("storage.flush.bytes.count").longValue()).isPositive();
+        assertThat(metrics.report()).anyMatch(line -> line.startsWith("food.search"));
+    }
+
+    @Test
+    void countersHistogramsAndGaugesReachTheMeterRegistry() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        YadaMetrics metrics = new YadaMetrics(true, ObservationRegistry.NOOP, meters);
+        metrics.counter("calories.cache.hits").increment(3);
+        metrics.counter("storage.flushes", () -> 7);
+        metrics.histogram("calories.recursion.depth").record(4);
+        metrics.gauge("log.days", () -> 12);
+        metrics.timer("storage.flush").recordNanos(2_000_000);
+
+        assertThat(meters.get("calories.cache.hits").functionCounter().count()).isEqualTo(3.0);
+        assertThat(meters.get("storage.flushes").functionCounter().count()).isEqualTo(7.0);
+        assertThat(meters.get("calories.recursion.depth").summary().max()).isEqualTo(4.0);
+        assertThat(meters.get("log.days").gauge().value()).isEqualTo(12.0);
+        assertThat(meters.get("storage.flush").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(2.0);
+        metrics.gauge("log.days", () -> 13);
+        assertThat(meters.get("log.days").gauge().value()).isEqualTo(13.0);
+        metrics.counter("storage.flushes", () -> 8);
+        assertThat(meters.get("storage.flushes").functionCounter().count()).isEqualTo(8.0);
+        assertThat(metrics.snapshot()).containsEntry("storage.flushes", 8L);
+    }
+
+    @Test
+    void disabledRegistryHandsOutNoOps() {
+        YadaMetrics metrics = YadaMetrics.disabled();
+        assertThat(metrics.timer("food.search")).isSameAs(Timer.NOOP);
+        assertThat(metrics.timer("food.search").record(() -> 42)).isEqualTo(42);
+        metrics.counter("calories.cache.hits").increment();
+        metrics.gauge("food.catalog.size", () -> 1);
+        assertThat(metrics.snapshot()).isEmpty();
+    }
+}
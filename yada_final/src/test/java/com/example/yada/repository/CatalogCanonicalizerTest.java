@@ -0,0 +1,79 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+
+class CatalogCanonicalizerTest {
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void duplicateIdsFollowThePolicy() {
+        assertThat(load("keep-first")).containsExactly(
+            new BasicFood("apple", List.of("fruit"), 95), new BasicFood("bread", List.of("bakery"), 80));
+        assertThat(load("keep-last")).containsExactly(
+            new BasicFood("Apple", List.of("snack"), 52), new BasicFood("bread", List.of("bakery"), 80));
+        assertThat(load("merge")).containsExactly(
+            new BasicFood("apple", List.of("fruit", "snack"), 95), new BasicFood("bread", List.of("bakery"), 80));
+        assertThatThrownBy(() -> load("reject"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Duplicate food ID 'apple' in the catalog!");
+        assertThatThrownBy(() -> load("newest"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown duplicate policy 'newest'!");
+    }
+
+    @Test
+    void sharesStringsAndKeywordLists() {
+        CatalogCanonicalizer canonicalizer = new CatalogCanonicalizer(CatalogCanonicalizer.DuplicatePolicy.KEEP_FIRST, true);
+        FoodIndex index = new FoodIndex();
+        List<BasicFood> basics = new ArrayList<>();
+        canonicalizer.addBasic(new BasicFood(new String("apple"), new ArrayList<>(List.of("fruit", "snack")), 95),
+            basics, index);
+        canonicalizer.addBasic(new BasicFood("pear", new ArrayList<>(List.of(new String("fruit"), "snack")), 57),
+            basics, index);
+        List<CompositeFood> composites = new ArrayList<>();
+        canonicalizer.addComposite(new CompositeFood("salad", List.of("fruit", "snack"),
+            Map.of(new String("apple"), 1.0)), composites, index);
+
+        assertThat(basics.get(1).getKeywords()).isSameAs(basics.get(0).getKeywords());
+        assertThat(composites.get(0).getKeywords()).isSameAs(basics.get(0).getKeywords());
+        assertThat(composites.get(0).getIngredients().keySet().iterator().next()).isSameAs(basics.get(0).getId());
+        assertThatThrownBy(() -> basics.get(0).getKeywords().add("red"))
+            .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(canonicalizer.getDuplicates()).isEmpty();
+    }
+
+    private List<BasicFood> load(String policy) {
+        Path dir = dataDir.resolve(policy);
+        try {
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve("basicFoods.json"),
+                "[{\"id\":\"apple\",\"keywords\":[\"fruit\"],\"caloriesPerServing\":95},"
+                + "{\"id\":\"bread\",\"keywords\":[\"bakery\"],\"caloriesPerServing\":80},"
+                + "{\"id\":\"Apple\",\"keywords\":[\"snack\"],\"caloriesPerServing\":52}]");
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.getCatalog().setDuplicates(policy);
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        assertThat(storage.getFoodIndex().findBasic("APPLE")).get().isSameAs(storage.getBasicFoods().get(0));
+        storage.saveAllData();
+        return storage.getBasicFoods();
+    }
+}
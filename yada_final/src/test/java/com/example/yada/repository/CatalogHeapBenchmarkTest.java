@@ -0,0 +1,56 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.config.StorageProperties;
+
+// Run with: mvn test -Pbenchmark -Dtest=CatalogHeapBenchmarkTest
+// Catalog size can be lowered with -Dbench.foods=...
+@Tag("benchmark")
+class CatalogHeapBenchmarkTest {
+    private static final int FOODS = Integer.getInteger("bench.foods", 1_000_000);
+
+    @TempDir
+    static Path dataDir;
+
+    @BeforeAll
+    static void generate() {
+        SyntheticData.writeBasicFoods(dataDir.resolve("basicFoods.json"), FOODS, 1);
+        SyntheticData.writeCompositeFoods(dataDir.resolve("compositeFoods.json"), FOODS / 10, 10, 4, FOODS, 2);
+    }
+
+    @Test
+    void canonicalizedCatalogHeap() {
+        long plain = retainedHeap(false);
+        long canonical = retainedHeap(true);
+        System.out.printf("catalog: %d foods, retained heap %d MB plain, %d MB canonicalized, %d MB saved%n",
+            FOODS, plain / (1024 * 1024), canonical / (1024 * 1024), (plain - canonical) / (1024 * 1024));
+        assertThat(canonical).isLessThan(plain);
+    }
+
+    private static long retainedHeap(boolean canonicalize) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        properties.getCatalog().setCanonicalize(canonicalize);
+        System.gc();
+        long before = usedHeap();
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        System.gc();
+        long retained = usedHeap() - before;
+        assertThat(storage.getBasicFoods()).hasSize(FOODS);
+        return retained;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
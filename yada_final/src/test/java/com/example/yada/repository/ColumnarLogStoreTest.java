@@ -0,0 +1,63 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.yada.model.LogEntry;
+
+class ColumnarLogStoreTest {
+    private final ColumnarLogStore store = new ColumnarLogStore();
+
+    @Test
+    void keepsDaysSortedAndEntriesInLoggingOrder() {
+        LocalDate monday = LocalDate.of(2026, 10, 12);
+        store.apply(LogMutation.add(monday.plusDays(2), "rice", 1));
+        store.apply(LogMutation.add(monday, "apple", 1));
+        store.apply(LogMutation.add(monday.plusDays(2), "beans", 2));
+        store.apply(LogMutation.add(monday, "apple", 0.5));
+        store.apply(LogMutation.add(monday.plusDays(1), "bread", 3));
+
+        assertThat(store.datesWithLogs()).containsExactly(monday, monday.plusDays(1), monday.plusDays(2));
+        assertThat(store.entries(monday.plusDays(2))).extracting(LogEntry::getFoodId)
+            .containsExactly("rice", "beans");
+
+        assertThat(store.apply(LogMutation.remove(monday, "apple", 0.5))).isTrue();
+        assertThat(store.apply(LogMutation.remove(monday, "apple", 0.5))).isFalse();
+        assertThat(store.apply(LogMutation.clear(monday.plusDays(1)))).isTrue();
+        assertThat(store.loggedDays()).isEqualTo(2);
+
+        double[] servings = new double[store.foodCount()];
+        store.forEachEntry(monday, monday.plusDays(6), (day, food, amount) -> servings[food] += amount);
+        assertThat(servings[0] + servings[1] + servings[2] + servings[3]).isEqualTo(4.0);
+        assertThat(store.snapshot().getEntries()).containsOnlyKeys(monday, monday.plusDays(2));
+
+        store.apply(LogMutation.remove(monday, "apple", 1));
+        assertThat(store.loggedDays()).isEqualTo(1);
+        assertThat(store.datesWithLogs()).containsExactly(monday.plusDays(2));
+    }
+
+    @Test
+    void batchMergeMatchesOneByOneApply() {
+        ColumnarLogStore sequential = new ColumnarLogStore();
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < 50; i++) {
+            LogMutation existing = LogMutation.add(start.plusDays(i * 7 % 40), "food" + i % 3, i);
+            store.apply(existing);
+            sequential.apply(existing);
+        }
+        List<LogMutation> batch = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            batch.add(LogMutation.add(start.plusDays(60 - i * 13 % 70), "food" + i % 5, i + 0.5));
+        }
+
+        assertThat(store.applyAll(batch)).isEqualTo(500);
+        batch.forEach(sequential::apply);
+        assertThat(store.snapshot()).isEqualTo(sequential.snapshot());
+        assertThat(store.datesWithLogs()).isEqualTo(sequential.datesWithLogs());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileSystemUtils;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.UserContext;
+
+class JsonDataStorageTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final UserContext ALICE = UserContext.of("alice");
+    private static final UserContext BOB = UserContext.of("bob");
+    private static final UserContext CAROL = UserContext.of("carol");
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shardWhoseFinalSaveFailsStaysInMemory() throws Exception {
+        StorageProperties properties = properties();
+        properties.getUsers().setMaxActive(1);
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        // A directory where the save's temp file should go makes every save of alice fail
+        Path blocker = dataDir.resolve("users/alice/dailyLogs.json.tmp");
+        Files.createDirectories(blocker.resolve("in-the-way"));
+
+        storage.applyLogMutation(ALICE, LogMutation.add(DAY, "apple", 2));
+        storage.getLogStore(BOB);
+        assertThat(storage.getActiveUserCount()).isEqualTo(2);
+        assertThat(storage.getDailyLog(ALICE).getEntries().get(DAY))
+            .extracting(LogEntry::getFoodId).containsExactly("apple");
+
+        FileSystemUtils.deleteRecursively(blocker);
+        storage.getLogStore(CAROL);
+        assertThat(storage.getActiveUserCount()).isEqualTo(1);
+        storage.saveAllData();
+
+        JsonDataStorage reopened = new JsonDataStorage(properties);
+        assertThat(reopened.getDailyLog(ALICE).getEntries().get(DAY))
+            .extracting(LogEntry::getServings).containsExactly(2.0);
+        reopened.saveAllData();
+    }
+
+    @Test
+    void checksumMismatchFallsBackToTheBackup() throws Exception {
+        StorageProperties properties = properties();
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        storage.getBasicFoods().add(new BasicFood("apple", List.of("fruit"), 95));
+        storage.saveAllData();
+        storage.getBasicFoods().add(new BasicFood("bread", List.of("bakery"), 80));
+        storage.saveBasicFoods();
+        // Still valid JSON, so only the checksum can tell
+        Path current = dataDir.resolve("basicFoods.json");
+        Files.writeString(current, Files.readString(current).replace("95", "96"));
+
+        JsonDataStorage reopened = new JsonDataStorage(properties);
+        assertThat(reopened.getBasicFoods()).extracting(BasicFood::getId).containsExactly("apple");
+        assertThat(reopened.getBasicFoods().get(0).getCaloriesPerServing()).isEqualTo(95);
+        reopened.saveAllData();
+    }
+
+    @Test
+    void bothGenerationsDamagedAreMovedAsideNotOverwritten() throws Exception {
+        StorageProperties properties = properties();
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        storage.getBasicFoods().add(new BasicFood("apple", List.of("fruit"), 95));
+        storage.saveBasicFoods();
+        storage.saveAllData();
+        Path current = dataDir.resolve("basicFoods.json");
+        Path backup = dataDir.resolve("basicFoods.json.bak");
+        Files.writeString(current, Files.readString(current).replace("95", "96"));
+        Files.writeString(backup, Files.readString(backup).replace("95", "97"));
+
+        JsonDataStorage reopened = new JsonDataStorage(properties);
+        assertThat(reopened.getBasicFoods()).isEmpty();
+        reopened.saveAllData();
+        reopened.saveAllData();
+
+        try (Stream<Path> files = Files.list(dataDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                .anyMatch(name -> name.startsWith("basicFoods.json.damaged-"))
+                .anyMatch(name -> name.startsWith("basicFoods.json.bak.damaged-"))
+                .anyMatch(name -> name.startsWith("basicFoods.json.crc.damaged-"));
+        }
+    }
+
+    @Test
+    void mappedLogClearedToEmptyStaysEmptyAfterRestart() throws Exception {
+        StorageProperties heap = properties();
+        JsonDataStorage before = new JsonDataStorage(heap);
+        before.applyLogMutation(ALICE, LogMutation.add(DAY, "apple", 1));
+        before.saveAllData();
+
+        StorageProperties mapped = properties();
+        mapped.setLogStore("mapped");
+        JsonDataStorage storage = new JsonDataStorage(mapped);
+        assertThat(storage.getDailyLog(ALICE).getEntries()).containsOnlyKeys(DAY);
+        storage.applyLogMutation(ALICE, LogMutation.clear(DAY));
+        storage.saveAllData();
+
+        JsonDataStorage reopened = new JsonDataStorage(mapped);
+        assertThat(reopened.getDailyLog(ALICE).getEntries()).isEmpty();
+        reopened.saveAllData();
+        assertThat(dataDir.resolve("users/alice/dailyLogs.json")).doesNotExist();
+        assertThat(dataDir.resolve("users/alice/dailyLogs.json.migrated")).exists();
+    }
+
+    @Test
+    void switchingToMappedReplaysTheJournalFromAnUncleanStop() throws Exception {
+        StorageProperties heap = properties();
+        heap.getJournal().setEnabled(true);
+        heap.getJournal().setFsyncBatchSize(1);
+        JsonDataStorage compacted = new JsonDataStorage(heap);
+        compacted.applyLogMutation(ALICE, LogMutation.add(DAY, "apple", 1));
+        compacted.saveAllData();
+        // Never saved: these only reach the journal
+        JsonDataStorage crashed = new JsonDataStorage(heap);
+        crashed.applyLogMutation(ALICE, LogMutation.add(DAY, "bread", 2));
+        crashed.applyLogMutation(ALICE, LogMutation.remove(DAY, "apple", 1));
+
+        StorageProperties mapped = properties();
+        mapped.setLogStore("mapped");
+        JsonDataStorage storage = new JsonDataStorage(mapped);
+        assertThat(storage.getDailyLog(ALICE).getEntries().get(DAY))
+            .extracting(LogEntry::getFoodId).containsExactly("bread");
+        storage.saveAllData();
+        assertThat(dataDir.resolve("users/alice/dailyLogs.journal")).doesNotExist();
+
+        JsonDataStorage reopened = new JsonDataStorage(mapped);
+        assertThat(reopened.getDailyLog(ALICE).getEntries().get(DAY))
+            .extracting(LogEntry::getServings).containsExactly(2.0);
+        reopened.saveAllData();
+    }
+
+    private StorageProperties properties() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        return properties;
+    }
+}
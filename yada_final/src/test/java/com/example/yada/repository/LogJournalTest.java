@@ -0,0 +1,144 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.UserContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LogJournalTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    private final ObjectMapper mapper = JsonStorageBackend.createMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysOnlyRecordsNewerThanTheSnapshot() throws Exception {
+        try (LogJournal journal = journal()) {
+            journal.open(0, mutation -> { });
+            journal.append(LogMutation.add(DAY, "apple", 1));
+            journal.append(LogMutation.add(DAY, "bread", 2));
+            journal.append(LogMutation.remove(DAY, "apple", 1));
+        }
+
+        List<LogMutation> replayed = new ArrayList<>();
+        try (LogJournal journal = journal()) {
+            journal.open(1, replayed::add);
+            assertThat(journal.getSequence()).isEqualTo(3);
+        }
+        assertThat(replayed).extracting(LogMutation::getSequence).containsExactly(2L, 3L);
+        assertThat(replayed).extracting(LogMutation::getFoodId).containsExactly("bread", "apple");
+    }
+
+    @Test
+    void tornTailIsCutSoLaterAppendsSurviveTheNextRestart() throws Exception {
+        try (LogJournal journal = journal()) {
+            journal.open(0, mutation -> { });
+            journal.append(LogMutation.add(DAY, "apple", 1));
+            journal.append(LogMutation.add(DAY, "bread", 2));
+        }
+        // A crash mid-append leaves half a record without its newline
+        Files.writeString(dir.resolve("dailyLogs.journal"), "{\"sequence\":3,\"op\":\"AD",
+            StandardOpenOption.APPEND);
+
+        try (LogJournal journal = journal()) {
+            List<LogMutation> replayed = new ArrayList<>();
+            journal.open(0, replayed::add);
+            assertThat(replayed).hasSize(2);
+            journal.append(LogMutation.add(DAY, "rice", 3));
+        }
+
+        List<LogMutation> replayed = new ArrayList<>();
+        try (LogJournal journal = journal()) {
+            journal.open(0, replayed::add);
+        }
+        assertThat(replayed).extracting(LogMutation::getFoodId).containsExactly("apple", "bread", "rice");
+        assertThat(replayed).extracting(LogMutation::getSequence).containsExactly(1L, 2L, 3L);
+        assertThat(Files.readString(dir.resolve("dailyLogs.journal"), StandardCharsets.UTF_8)).endsWith("\n");
+    }
+
+    @Test
+    void batchWithoutItsCommitIsDroppedWhole() throws Exception {
+        Path file = dir.resolve("dailyLogs.journal");
+        try (LogJournal journal = journal()) {
+            journal.open(0, mutation -> { });
+            journal.append(LogMutation.add(DAY, "apple", 1));
+            journal.appendAll(List.of(LogMutation.add(DAY, "bread", 1), LogMutation.add(DAY, "rice", 1)));
+            journal.appendAll(List.of(LogMutation.add(DAY, "beans", 1), LogMutation.add(DAY, "corn", 1)));
+        }
+        // A crash mid-import: the last batch reached disk without its COMMIT record
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        Files.writeString(file, content.substring(0, content.lastIndexOf("{\"sequence\":0")));
+
+        try (LogJournal journal = journal()) {
+            List<LogMutation> replayed = new ArrayList<>();
+            journal.open(0, replayed::add);
+            assertThat(replayed).extracting(LogMutation::getFoodId).containsExactly("apple", "bread", "rice");
+            journal.append(LogMutation.add(DAY, "pear", 1));
+        }
+
+        List<LogMutation> replayed = new ArrayList<>();
+        try (LogJournal journal = journal()) {
+            journal.open(0, replayed::add);
+        }
+        assertThat(replayed).extracting(LogMutation::getFoodId).containsExactly("apple", "bread", "rice", "pear");
+        assertThat(replayed).extracting(LogMutation::getSequence).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void rotatedRecordsAreSkippedOnceTheSnapshotCoversThem() throws Exception {
+        long snapshotSequence;
+        try (LogJournal journal = journal()) {
+            journal.open(0, mutation -> { });
+            journal.append(LogMutation.add(DAY, "apple", 1));
+            journal.append(LogMutation.add(DAY, "bread", 2));
+            snapshotSequence = journal.rotate();
+            journal.append(LogMutation.add(DAY, "rice", 3));
+            // Crash before discardRotated(): the rotated file is still there
+        }
+
+        List<LogMutation> replayed = new ArrayList<>();
+        try (LogJournal journal = journal()) {
+            journal.open(snapshotSequence, replayed::add);
+            assertThat(journal.getRecordCount()).isEqualTo(1);
+        }
+        assertThat(replayed).extracting(LogMutation::getFoodId).containsExactly("rice");
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheSnapshot() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.getJournal().setEnabled(true);
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        storage.applyLogMutation(UserContext.DEFAULT, LogMutation.add(DAY, "apple", 1));
+        storage.applyLogMutation(UserContext.DEFAULT, LogMutation.add(DAY, "bread", 2));
+        storage.applyLogMutation(UserContext.DEFAULT, LogMutation.remove(DAY, "apple", 1));
+        storage.saveAllData();
+
+        assertThat(dir.resolve("dailyLogs.journal")).isEmptyFile();
+        assertThat(dir.resolve("dailyLogs.journal.1")).doesNotExist();
+        JsonDataStorage reloaded = new JsonDataStorage(properties);
+        assertThat(reloaded.getDailyLog(UserContext.DEFAULT).getEntries().get(DAY))
+            .extracting(LogEntry::getFoodId).containsExactly("bread");
+        reloaded.saveAllData();
+    }
+
+    private LogJournal journal() {
+        return new LogJournal(dir.resolve("dailyLogs.journal"), mapper, 1);
+    }
+}
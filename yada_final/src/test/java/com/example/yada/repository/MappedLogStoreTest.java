@@ -0,0 +1,67 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.model.LogEntry;
+
+class MappedLogStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesSurviveReopenAcrossSegmentsAndGrowth() throws Exception {
+        LocalDate jan = LocalDate.of(2026, 1, 31);
+        LocalDate feb = LocalDate.of(2026, 2, 1);
+        try (MappedLogStore store = new MappedLogStore(dir, 1)) {
+            for (int i = 0; i < 1000; i++) {
+                store.apply(LogMutation.add(jan, "food" + (i % 7), i));
+            }
+            store.apply(LogMutation.add(feb, "apple", 1.5));
+            store.apply(LogMutation.add(feb, "bread", 2));
+            assertThat(store.apply(LogMutation.remove(feb, "apple", 1.5))).isTrue();
+            assertThat(store.apply(LogMutation.remove(feb, "apple", 1.5))).isFalse();
+        }
+
+        try (MappedLogStore store = new MappedLogStore(dir, 1)) {
+            assertThat(store.entries(jan)).hasSize(1000);
+            assertThat(store.entries(feb)).extracting(LogEntry::getFoodId).containsExactly("bread");
+            assertThat(store.datesWithLogs()).containsExactly(jan, feb);
+
+            assertThat(store.apply(LogMutation.clear(jan))).isTrue();
+            assertThat(store.loggedDays()).isEqualTo(1);
+            assertThat(store.snapshot().getEntries()).containsOnlyKeys(feb);
+        }
+    }
+
+    @Test
+    void undoRedoChurnIsCompactedAway() throws Exception {
+        LocalDate day = LocalDate.of(2026, 3, 14);
+        Path segment = dir.resolve("2026-03.seg");
+        try (MappedLogStore store = new MappedLogStore(dir, 1)) {
+            store.apply(LogMutation.add(day, "apple", 1));
+            store.apply(LogMutation.add(day.plusDays(1), "bread", 2));
+            long initialSize = Files.size(segment);
+            for (int i = 0; i < 5000; i++) {
+                store.apply(LogMutation.add(day, "rice", i));
+                store.apply(LogMutation.remove(day, "rice", i));
+            }
+            store.apply(LogMutation.add(day, "pear", 3));
+            assertThat(Files.size(segment)).isEqualTo(initialSize);
+            assertThat(store.entries(day)).extracting(LogEntry::getFoodId).containsExactly("apple", "pear");
+        }
+
+        try (MappedLogStore store = new MappedLogStore(dir, 1)) {
+            assertThat(store.entries(day)).extracting(LogEntry::getFoodId).containsExactly("apple", "pear");
+            assertThat(store.datesWithLogs()).containsExactly(day, day.plusDays(1));
+            assertThat(store.apply(LogMutation.clear(day))).isTrue();
+            assertThat(store.loggedDays()).isEqualTo(1);
+        }
+    }
+}
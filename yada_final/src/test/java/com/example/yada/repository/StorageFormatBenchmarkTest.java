@@ -0,0 +1,76 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.config.StorageProperties;
+
+// Run with: mvn test -Pbenchmark -Dtest=StorageFormatBenchmarkTest
+@Tag("benchmark")
+class StorageFormatBenchmarkTest {
+    private static final int FOODS = Integer.getInteger("bench.foods", 1_000_000);
+    private static final int YEARS = Integer.getInteger("bench.years", 10);
+
+    @TempDir
+    Path jsonDir;
+
+    @TempDir
+    Path binaryDir;
+
+    @Test
+    void compareJsonAndBinary() throws IOException {
+        SyntheticData.writeBasicFoods(jsonDir.resolve("basicFoods.json"), FOODS, 1);
+        SyntheticData.writeCompositeFoods(jsonDir.resolve("compositeFoods.json"), FOODS / 100, 10, 4, FOODS, 2);
+        SyntheticData.writeDailyLogs(jsonDir.resolve("dailyLogs.json"), LocalDate.of(2016, 1, 1),
+            YEARS * 365, 6, FOODS, 3);
+        StorageFormatConverter.convert(jsonDir, new JsonStorageBackend(), binaryDir, new BinaryStorageBackend());
+
+        Result json = measure(jsonDir, "json");
+        Result binary = measure(binaryDir, "binary");
+        System.out.printf("%-7s %12s %10s %10s%n", "format", "bytes", "load ms", "save ms");
+        json.print("json");
+        binary.print("binary");
+
+        assertThat(binary.bytes).isLessThan(json.bytes);
+    }
+
+    private static Result measure(Path dir, String format) throws IOException {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.setFormat(format);
+
+        long start = System.nanoTime();
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        long loadMs = (System.nanoTime() - start) / 1_000_000;
+        assertThat(storage.getBasicFoods()).hasSize(FOODS);
+
+        start = System.nanoTime();
+        storage.saveAllData();
+        long saveMs = (System.nanoTime() - start) / 1_000_000;
+
+        StorageBackend backend = StorageBackend.forFormat(format);
+        long bytes = 0;
+        for (Dataset dataset : Dataset.values()) {
+            Path file = dir.resolve(dataset.fileName(backend));
+            if (Files.exists(file)) {
+                bytes += Files.size(file);
+            }
+        }
+        return new Result(bytes, loadMs, saveMs);
+    }
+
+    private record Result(long bytes, long loadMs, long saveMs) {
+        void print(String format) {
+            System.out.printf("%-7s %12d %10d %10d%n", format, bytes, loadMs, saveMs);
+        }
+    }
+}
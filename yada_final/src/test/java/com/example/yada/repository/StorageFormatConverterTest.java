@@ -0,0 +1,189 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.BasicFood;
+import com.example.yada.model.CompositeFood;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.UserContext;
+
+class StorageFormatConverterTest {
+    private static final UserContext ALICE = UserContext.of("alice");
+
+    @TempDir
+    Path jsonDir;
+
+    @TempDir
+    Path binaryDir;
+
+    @TempDir
+    Path roundTripDir;
+
+    @Test
+    void jsonToBinaryAndBackIsLossless() throws Exception {
+        JsonDataStorage original = storage(jsonDir, "json");
+        original.getBasicFoods().add(new BasicFood("apple", List.of("fruit", "snack"), 95));
+        original.getBasicFoods().add(new BasicFood("apple", List.of("fruit", "snack"), 95));
+        original.getBasicFoods().add(new BasicFood("Crème brûlée", null, -1));
+        Map<String, Double> ingredients = new LinkedHashMap<>();
+        ingredients.put("apple", 2.5);
+        ingredients.put("missing", 0.1);
+        original.getCompositeFoods().add(new CompositeFood("pie", Arrays.asList("dessert", null), ingredients));
+        original.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(1969, 12, 31), "apple", 1.0 / 3));
+        original.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 10, 18), "pie", 2));
+        original.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 10, 19), "apple", 1));
+        original.applyLogMutation(UserContext.DEFAULT, LogMutation.clear(LocalDate.of(2026, 10, 19)));
+        original.getUserProfile(UserContext.DEFAULT).setGender("female");
+        original.getUserProfile(UserContext.DEFAULT).setAge(41);
+        original.getUserProfile(UserContext.DEFAULT).setHeight(170.2);
+        original.applyLogMutation(ALICE, LogMutation.add(LocalDate.of(2026, 10, 18), "apple", 4));
+        original.saveAllData();
+
+        StorageFormatConverter.convert(jsonDir, new JsonStorageBackend(), binaryDir, new BinaryStorageBackend());
+        assertThat(Files.exists(binaryDir.resolve("basicFoods.bin"))).isTrue();
+        JsonDataStorage binary = storage(binaryDir, "binary");
+        assertSameData(original, binary);
+
+        StorageFormatConverter.convert(binaryDir, new BinaryStorageBackend(), roundTripDir, new JsonStorageBackend());
+        assertSameData(original, storage(roundTripDir, "json"));
+        assertThat(Files.readString(roundTripDir.resolve("basicFoods.json")))
+            .isEqualTo(Files.readString(jsonDir.resolve("basicFoods.json")));
+    }
+
+    @Test
+    void uncompactedJournalAndMappedSegmentsAreConverted() throws Exception {
+        JsonDataStorage compacted = storage(jsonDir, "json", "heap");
+        compacted.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 10, 17), "apple", 1));
+        compacted.saveAllData();
+        // Still running: these records are only in the journal
+        JsonDataStorage live = storage(jsonDir, "json", "heap");
+        live.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 10, 18), "pie", 2));
+        live.applyLogMutations(ALICE, List.of(LogMutation.add(LocalDate.of(2026, 10, 18), "apple", 4)));
+        // Segments replace the snapshot in mapped mode
+        JsonDataStorage mapped = storage(roundTripDir, "json", "mapped");
+        mapped.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 10, 19), "bread", 3));
+
+        StorageFormatConverter.convert(jsonDir, new JsonStorageBackend(), binaryDir, new BinaryStorageBackend());
+        JsonDataStorage binary = storage(binaryDir, "binary");
+        assertThat(binary.getDailyLog(UserContext.DEFAULT).getEntries()).isEqualTo(live.getDailyLog(UserContext.DEFAULT).getEntries());
+        assertThat(binary.getDailyLog(ALICE).getEntries()).isEqualTo(live.getDailyLog(ALICE).getEntries());
+
+        Path fromMapped = binaryDir.resolve("mapped");
+        StorageFormatConverter.convert(roundTripDir, new JsonStorageBackend(), fromMapped, new BinaryStorageBackend());
+        assertThat(storage(fromMapped, "binary").getDailyLog(UserContext.DEFAULT).getEntries())
+            .containsOnlyKeys(LocalDate.of(2026, 10, 19));
+        live.saveAllData();
+        mapped.saveAllData();
+    }
+
+    @Test
+    void binaryRangeReadSkipsOtherDays() {
+        JsonDataStorage storage = storage(binaryDir, "binary");
+        for (int day = 0; day < 60; day++) {
+            storage.applyLogMutation(UserContext.DEFAULT, LogMutation.add(LocalDate.of(2026, 1, 1).plusDays(day), "apple", day + 1));
+        }
+        storage.saveAllData();
+
+        Map<LocalDate, List<LogEntry>> slice = storage.loadDailyLogRange(UserContext.DEFAULT,
+            LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 7)).getEntries();
+        assertThat(slice).hasSize(7);
+        assertThat(slice.get(LocalDate.of(2026, 2, 1)).get(0).getServings()).isEqualTo(32.0);
+    }
+
+    @Test
+    void binaryNutrientVectorsAreNormalizedToTheNutrientCount() throws Exception {
+        BinaryStorageBackend backend = new BinaryStorageBackend();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        backend.writeBasicFoods(out, List.of(
+            new BasicFood("short", List.of(), 10, new double[] { 0, 1.5 }),
+            new BasicFood("long", List.of(), 20, new double[Nutrient.COUNT + 3])));
+
+        List<BasicFood> foods = new ArrayList<>();
+        backend.readBasicFoods(new ByteArrayInputStream(out.toByteArray()), foods::add);
+        assertThat(foods).extracting(food -> food.getNutrients().length).containsOnly(Nutrient.COUNT);
+        assertThat(foods.get(0).getNutrients()[1]).isEqualTo(1.5);
+        assertThat(foods.get(0).getNutrients()[Nutrient.COUNT - 1]).isZero();
+    }
+
+    @Test
+    void jsonRangeReadFoldsInTheJournalWithoutLoadingTheShard() throws Exception {
+        JsonDataStorage saved = storage(jsonDir, "json", "columnar");
+        for (int day = 0; day < 60; day++) {
+            saved.applyLogMutation(ALICE, LogMutation.add(LocalDate.of(2026, 1, 1).plusDays(day), "apple", day + 1));
+        }
+        saved.saveAllData();
+        // Journaled only; the snapshot still has the old days
+        JsonDataStorage writer = storage(jsonDir, "json", "columnar");
+        writer.applyLogMutation(ALICE, LogMutation.clear(LocalDate.of(2026, 2, 2)));
+        writer.applyLogMutation(ALICE, LogMutation.add(LocalDate.of(2026, 2, 3), "pear", 1));
+        writer.applyLogMutation(ALICE, LogMutation.add(LocalDate.of(2026, 3, 15), "pear", 1));
+
+        JsonDataStorage reader = storage(jsonDir, "json", "columnar");
+        int active = reader.getActiveUserCount();
+        Map<LocalDate, List<LogEntry>> slice = reader.loadDailyLogRange(ALICE,
+            LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 7)).getEntries();
+        assertThat(reader.getActiveUserCount()).isEqualTo(active);
+        assertThat(slice).hasSize(6).doesNotContainKey(LocalDate.of(2026, 2, 2));
+        assertThat(slice.get(LocalDate.of(2026, 2, 3))).extracting(LogEntry::getFoodId).containsExactly("apple", "pear");
+        assertThat(writer.loadDailyLogRange(ALICE, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 7)).getEntries())
+            .isEqualTo(slice);
+        writer.saveAllData();
+    }
+
+    @Test
+    void jsonRangeReadOfASnapshotWithTheSequenceLast() throws Exception {
+        Path file = jsonDir.resolve("users/alice/dailyLogs.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"entries\":{"
+            + "\"2026-01-01\":[{\"foodId\":\"apple\",\"servings\":1.0}],"
+            + "\"2026-01-02\":[{\"foodId\":\"pear\",\"servings\":2.0}],"
+            + "\"2026-01-03\":[{\"foodId\":\"plum\",\"servings\":3.0}]},"
+            + "\"journalSequence\":7}");
+
+        var slice = storage(jsonDir, "json").loadDailyLogRange(ALICE, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2));
+        assertThat(slice.getEntries()).containsOnlyKeys(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2));
+        assertThat(slice.getJournalSequence()).isEqualTo(7);
+    }
+
+    private static void assertSameData(JsonDataStorage expected, JsonDataStorage actual) {
+        // The converter copies the repeated apple; loading keeps the first of them
+        assertThat(actual.getBasicFoods()).isEqualTo(expected.getBasicFoods().stream().distinct().toList());
+        assertThat(actual.getCompositeFoods()).isEqualTo(expected.getCompositeFoods());
+        assertThat(actual.getDailyLog(UserContext.DEFAULT).getEntries()).isEqualTo(expected.getDailyLog(UserContext.DEFAULT).getEntries());
+        assertThat(actual.getUserProfile(UserContext.DEFAULT)).isEqualTo(expected.getUserProfile(UserContext.DEFAULT));
+        assertThat(actual.getDailyLog(ALICE).getEntries()).isEqualTo(expected.getDailyLog(ALICE).getEntries());
+    }
+
+    private static JsonDataStorage storage(Path dir, String format) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.setFormat(format);
+        return new JsonDataStorage(properties);
+    }
+
+    private static JsonDataStorage storage(Path dir, String format, String logStore) {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dir.toString());
+        properties.setFormat(format);
+        properties.setLogStore(logStore);
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setFsyncBatchSize(1);
+        return new JsonDataStorage(properties);
+    }
+}
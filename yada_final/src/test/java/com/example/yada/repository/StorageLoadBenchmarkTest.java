@@ -0,0 +1,77 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.SyntheticData;
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.DailyLog;
+import com.example.yada.model.UserContext;
+
+// Run with: mvn test -Pbenchmark -Dtest=StorageLoadBenchmarkTest
+// Sizes can be lowered with -Dbench.foods=... and -Dbench.years=...
+@Tag("benchmark")
+class StorageLoadBenchmarkTest {
+    private static final int FOODS = Integer.getInteger("bench.foods", 1_000_000);
+    private static final int YEARS = Integer.getInteger("bench.years", 10);
+    private static final int ENTRIES_PER_DAY = 6;
+    private static final LocalDate START = LocalDate.of(2016, 1, 1);
+
+    @TempDir
+    static Path dataDir;
+
+    @BeforeAll
+    static void generate() {
+        SyntheticData.writeBasicFoods(dataDir.resolve("basicFoods.json"), FOODS, 1);
+        SyntheticData.writeCompositeFoods(dataDir.resolve("compositeFoods.json"), FOODS / 100, 10, 4, FOODS, 2);
+        SyntheticData.writeDailyLogs(dataDir.resolve("dailyLogs.json"), START, YEARS * 365,
+            ENTRIES_PER_DAY, FOODS, 3);
+    }
+
+    @Test
+    void startup() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapAfter = usedHeap();
+
+        System.out.printf("startup: %d foods, %d logged days in %d ms, retained heap %d MB%n",
+            storage.getBasicFoods().size(), storage.getDailyLog(UserContext.DEFAULT).getEntries().size(),
+            elapsedMs, (heapAfter - heapBefore) / (1024 * 1024));
+        assertThat(storage.getBasicFoods()).hasSize(FOODS);
+        assertThat(storage.getFoodIndex().findBasic(SyntheticData.basicId(FOODS - 1))).isPresent();
+    }
+
+    @Test
+    void dateRangeSlice() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+
+        LocalDate from = START.plusDays(100);
+        long start = System.nanoTime();
+        DailyLog month = storage.loadDailyLogRange(UserContext.DEFAULT, from, from.plusDays(29));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("slice: 30 of %d days in %d ms%n", YEARS * 365, elapsedMs);
+        assertThat(month.getEntries()).hasSize(30);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.yada.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class WriteBehindFlusherTest {
+    // Long enough that only explicit flushes run during a test
+    private static final long NEVER = 3_600_000;
+
+    @Test
+    void failedWriteKeepsTheKeyDirtyUntilItSucceeds() {
+        AtomicInteger failuresLeft = new AtomicInteger(2);
+        List<String> written = new ArrayList<>();
+        WriteBehindFlusher<String> flusher = new WriteBehindFlusher<>(NEVER, key -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new UncheckedIOException(new IOException("disk full"));
+            }
+            written.add(key);
+        }, new StorageMetrics());
+
+        flusher.markDirty("basicFoods");
+        flusher.markDirty("basicFoods");
+        flusher.flushDirty();
+        flusher.flushDirty();
+        assertThat(written).isEmpty();
+
+        flusher.flushDirty();
+        assertThat(written).containsExactly("basicFoods");
+        flusher.flushDirty();
+        assertThat(written).containsExactly("basicFoods");
+        flusher.shutdown();
+    }
+
+    @Test
+    void shutdownFlushesWhatIsStillQueued() {
+        List<String> written = new ArrayList<>();
+        StorageMetrics metrics = new StorageMetrics();
+        WriteBehindFlusher<String> flusher = new WriteBehindFlusher<>(NEVER, written::add, metrics);
+
+        flusher.markDirty("basicFoods");
+        flusher.markDirty("compositeFoods");
+        flusher.markDirty("basicFoods");
+        flusher.shutdown();
+
+        assertThat(written).containsExactlyInAnyOrder("basicFoods", "compositeFoods");
+        assertThat(metrics.getQueueDepth()).isZero();
+    }
+}
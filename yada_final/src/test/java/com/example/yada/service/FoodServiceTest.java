@@ -0,0 +1,123 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.repository.JsonDataStorage;
+
+class FoodServiceTest {
+    @TempDir
+    Path dataDir;
+
+    private JsonDataStorage storage;
+    private FoodService foodService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        // Catalog saves coalesce instead of rewriting the catalog once per food
+        properties.getWriteBehind().setEnabled(true);
+        storage = new JsonDataStorage(properties);
+        foodService = new FoodService(storage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.saveAllData();
+    }
+
+    @Test
+    void compositeCaloriesUseFlattenedIngredients() {
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        foodService.addBasicFood("peanut_butter", List.of("spread"), 190);
+        foodService.addCompositeFood("pb_sandwich", List.of("lunch"),
+            Map.of("bread", 2.0, "peanut_butter", 1.0));
+        foodService.addCompositeFood("double_lunch", List.of("lunch"),
+            Map.of("pb_sandwich", 2.0, "bread", 1.0));
+
+        assertThat(foodService.getFlattenedRecipe("double_lunch").asMap())
+            .containsEntry("bread", 5.0)
+            .containsEntry("peanut_butter", 2.0);
+        assertThat(foodService.calculateCalories("double_lunch", 1.5)).isEqualTo(1170);
+    }
+
+    @Test
+    void deletingIngredientInvalidatesDependents() {
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        foodService.addCompositeFood("toast", List.of("breakfast"), Map.of("bread", 1.0));
+        foodService.addCompositeFood("brunch", List.of("breakfast"), Map.of("toast", 2.0));
+        assertThat(foodService.calculateCalories("brunch", 1)).isEqualTo(160);
+
+        foodService.deleteBasicFood("bread");
+        assertThatThrownBy(() -> foodService.calculateCalories("brunch", 1))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        foodService.addBasicFood("bread", List.of("bakery"), 100);
+        assertThat(foodService.calculateCalories("brunch", 1)).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsCycleThroughDanglingIngredient() {
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        foodService.addCompositeFood("b", List.of(), Map.of("bread", 1.0));
+        foodService.addCompositeFood("a", List.of(), Map.of("b", 1.0));
+        foodService.deleteCompositeFood("b");
+
+        assertThatThrownBy(() -> foodService.addCompositeFood("b", List.of(), Map.of("a", 1.0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("contain itself");
+        assertThat(foodService.findCompositeFoodById("b")).isEmpty();
+    }
+
+    @Test
+    void resolvesRecipeChainWithoutRecursion() {
+        String top = chain(2000, 1.0);
+        assertThat(foodService.calculateCalories(top, 3)).isEqualTo(3);
+        assertThat(foodService.getFlattenedRecipe(top).asMap()).containsOnlyKeys("water");
+    }
+
+    @Test
+    void resolvesChainAfterCacheInvalidation() {
+        String top = chain(1000, 2.0);
+        // Dropping the bottom of the chain forces the whole chain to be re-flattened
+        foodService.deleteBasicFood("water");
+        foodService.addBasicFood("water", List.of("drink"), 10);
+        assertThat(foodService.calculateCalories(top, 1)).isEqualTo(20);
+    }
+
+    // Timing run on a chain deep enough that a recursive walk would overflow the default stack
+    @Test
+    @Tag("benchmark")
+    void resolvesVeryDeepChainWithoutRecursion() {
+        long start = System.nanoTime();
+        String top = chain(20000, 1.0);
+        assertThat(foodService.calculateCalories(top, 3)).isEqualTo(3);
+        foodService.deleteBasicFood("water");
+        foodService.addBasicFood("water", List.of("drink"), 10);
+        assertThat(foodService.calculateCalories(top, 1)).isEqualTo(10);
+        System.out.printf("20000-level chain: built and resolved twice in %d ms%n",
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // water <- level0 <- level1 <- ...; returns the top composite's id
+    private String chain(int depth, double water) {
+        foodService.addBasicFood("water", List.of("drink"), 1);
+        foodService.addCompositeFood("level0", List.of(), Map.of("water", water));
+        for (int i = 1; i < depth; i++) {
+            foodService.addCompositeFood("level" + i, List.of(), Map.of("level" + (i - 1), 1.0));
+        }
+        return "level" + (depth - 1);
+    }
+}
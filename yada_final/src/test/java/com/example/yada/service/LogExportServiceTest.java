@@ -0,0 +1,118 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.DailyCalories;
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+
+class LogExportServiceTest {
+    private static final UserContext USER = UserContext.DEFAULT;
+    private static final UserContext ALICE = UserContext.of("alice");
+    private static final LocalDate START = LocalDate.of(2016, 1, 1);
+
+    @TempDir
+    Path dataDir;
+
+    private LogService logService;
+    private LogImportService importService;
+    private LogExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.resolve("data").toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        FoodService foodService = new FoodService(storage);
+        for (int i = 0; i < 20; i++) {
+            foodService.addBasicFood("food" + i, List.of("test"), 10 * (i + 1));
+        }
+        logService = new LogService(storage, foodService);
+        importService = new LogImportService(logService);
+        exportService = new LogExportService(logService);
+    }
+
+    @Test
+    void exportsRoundTripThroughImport() throws Exception {
+        logService.logFood(USER, START, "food1", 2);
+        logService.logFood(USER, START, "food2", 0.5);
+        logService.logFood(USER, START.plusDays(3), "food1", 1);
+
+        Path csv = dataDir.resolve("log.csv");
+        Path jsonl = dataDir.resolve("log.jsonl");
+        assertThat(exportService.exportFile(USER, START, START.plusDays(9), csv)).isEqualTo(3);
+        assertThat(exportService.exportFile(USER, START, START.plusDays(9), jsonl)).isEqualTo(3);
+        assertThat(Files.readAllLines(jsonl).get(0))
+            .isEqualTo("{\"date\":\"2016-01-01\",\"foodId\":\"food1\",\"servings\":2.0}");
+
+        assertThat(importService.importFile(ALICE, csv)).isEqualTo(3);
+        List<FoodLogRequest> original = logService.streamEntries(USER, START, START.plusDays(9)).toList();
+        assertThat(logService.streamEntries(ALICE, START, START.plusDays(9)).toList()).isEqualTo(original);
+        importService.importFile(ALICE, jsonl);
+        assertThat(logService.calculateCalories(ALICE, START, START.plusDays(9)))
+            .isEqualTo(2 * logService.calculateCalories(USER, START, START.plusDays(9)));
+    }
+
+    @Test
+    void streamsAreLazyAndTopFoodsMatchTheFullRanking() throws Exception {
+        List<FoodLogRequest> history = new ArrayList<>();
+        for (int day = 0; day < 10 * 365; day++) {
+            for (int e = 0; e < 3; e++) {
+                int food = (day * 7 + e * 3) % 20;
+                // Servings grow with the food number so no two totals tie
+                history.add(new FoodLogRequest(START.plusDays(day), "food" + food, 1 + food * 0.125));
+            }
+        }
+        logService.logFoods(USER, history);
+        LocalDate end = START.plusDays(10 * 365 - 1);
+
+        // Only the days pulled are ever evaluated, even over an open-ended range
+        assertThat(logService.streamDatesWithLogs(USER, START.minusDays(2), LocalDate.MAX).limit(2))
+            .containsExactly(START, START.plusDays(1));
+        assertThat(logService.streamDailyCalories(USER, START, LocalDate.MAX).limit(1))
+            .containsExactly(new DailyCalories(START, logService.calculateDailyCalories(USER, START)));
+        assertThat(logService.streamDailyCalories(USER, START, end).mapToLong(DailyCalories::getCalories).sum())
+            .isEqualTo(logService.calculateCalories(USER, START, end));
+
+        Map<String, Double> frequency = logService.getFoodFrequency(USER, START, end);
+        assertThat(logService.getTopFoods(USER, START, end, 5).entrySet())
+            .containsExactlyElementsOf(frequency.entrySet().stream().limit(5).toList());
+
+        CountingStream sink = new CountingStream();
+        assertThat(exportService.exportCsv(USER, START, end, sink)).isEqualTo(history.size());
+        assertThat(sink.bytes).isGreaterThan(history.size() * 20L);
+
+        ByteArrayOutputStream one = new ByteArrayOutputStream();
+        exportService.exportJsonLines(USER, START, START, one);
+        assertThat(one.toString().lines()).hasSize(3);
+    }
+
+    private static class CountingStream extends OutputStream {
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+
+class LogImportServiceTest {
+    private static final UserContext USER = UserContext.DEFAULT;
+
+    @TempDir
+    Path dataDir;
+
+    private LogService logService;
+    private LogImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.resolve("data").toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        FoodService foodService = new FoodService(storage);
+        foodService.addBasicFood("apple", List.of("fruit"), 95);
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        logService = new LogService(storage, foodService);
+        importService = new LogImportService(logService);
+    }
+
+    @Test
+    void importsCsvAndJsonFiles() throws Exception {
+        Path csv = Files.writeString(dataDir.resolve("week.csv"),
+            "date,foodId,servings\n2026-10-12,apple,1\n\n2026-10-13, Bread ,2\n");
+        Path jsonl = Files.writeString(dataDir.resolve("more.jsonl"),
+            "{\"date\":\"2026-10-14\",\"foodId\":\"apple\",\"servings\":3}\n"
+            + "{\"date\":\"2026-10-12\",\"foodId\":\"bread\",\"servings\":1}\n");
+
+        assertThat(importService.importFile(USER, csv)).isEqualTo(2);
+        assertThat(importService.importFile(USER, jsonl)).isEqualTo(2);
+        assertThat(logService.calculateCalories(USER, LocalDate.of(2026, 10, 12), LocalDate.of(2026, 10, 14)))
+            .isEqualTo(95 + 160 + 285 + 80);
+
+        logService.undo(USER);
+        assertThat(logService.getTotalLoggedDays(USER)).isEqualTo(2);
+    }
+
+    @Test
+    void badLineRejectsTheWholeFile() throws Exception {
+        Path csv = Files.writeString(dataDir.resolve("bad.csv"), "2026-10-12,apple,1\n2026-10-13,apple,lots\n");
+
+        assertThatThrownBy(() -> importService.importFile(USER, csv))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Line 2:");
+        assertThat(logService.getTotalLoggedDays(USER)).isZero();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.repository.LogListener;
+import com.example.yada.repository.LogMutation;
+import com.example.yada.repository.LogStore;
+
+// Stress tests: many threads hammer a few shared days; the final state must
+// account for every operation and readers must never see a half-applied change
+class LogServiceConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 400;
+    private static final LocalDate START = LocalDate.of(2026, 10, 1);
+    private static final UserContext USER = UserContext.DEFAULT;
+
+    @TempDir
+    Path dataDir;
+
+    private JsonDataStorage storage;
+    private LogService logService;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        properties.getWriteBehind().setEnabled(true);
+        // Large enough that no action falls off the undo history
+        properties.getUndo().setMaxRecords(1 << 20);
+        storage = new JsonDataStorage(properties);
+        FoodService foodService = new FoodService(storage);
+        foodService.addBasicFood("apple", List.of("fruit"), 95);
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+        logService = new LogService(storage, foodService);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        storage.saveAllData();
+    }
+
+    @Test
+    void concurrentLoggingLosesNoEntries() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                // Threads collide on the same four days
+                logService.logFood(USER, START.plusDays(i % 4), i % 2 == 0 ? "apple" : "bread", 1);
+            }
+        });
+
+        int entries = 0;
+        for (int day = 0; day < 4; day++) {
+            entries += logService.getDailyLog(USER, START.plusDays(day)).size();
+        }
+        assertThat(entries).isEqualTo(THREADS * OPERATIONS);
+        assertThat(logService.getUndoStackSize(USER)).isEqualTo(THREADS * OPERATIONS);
+        assertThat(logService.calculateCalories(USER, START, START.plusDays(3)))
+            .isEqualTo(THREADS * OPERATIONS / 2 * (95L + 80));
+        assertThat(logService.getFoodFrequency(USER, START, START.plusDays(3)))
+            .containsEntry("apple", THREADS * OPERATIONS / 2.0)
+            .containsEntry("bread", THREADS * OPERATIONS / 2.0);
+    }
+
+    @Test
+    void concurrentUndoReversesEveryAction() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                LocalDate date = START.plusDays(i % 3);
+                logService.logFood(USER, date, "apple", 1 + thread);
+                if (i % 5 == 0) {
+                    logService.clearDailyLog(USER, date);
+                }
+                if (i % 2 == 1) {
+                    logService.undo(USER);
+                }
+            }
+            while (logService.undo(USER)) {
+                // Drain whatever is left, racing the other threads
+            }
+        });
+
+        assertThat(logService.getTotalLoggedDays(USER)).isZero();
+        assertThat(logService.calculateCalories(USER, START, START.plusDays(2))).isZero();
+        assertThat(logService.getUndoStackSize(USER)).isZero();
+    }
+
+    @Test
+    void reportsNeverSeeHalfOfACompoundChange() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            logService.logFood(USER, START, "apple", 1);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Double> observed = new ArrayList<>();
+        Future<?> reader = pool.submit(() -> {
+            while (running.get()) {
+                Map<String, Double> frequency = logService.getFoodFrequency(USER, START, START);
+                observed.add(frequency.getOrDefault("apple", 0.0));
+            }
+        });
+        // Clear, then undo the clear: one CLEAR followed by five ADDs
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                logService.clearDailyLog(USER, START);
+                logService.undo(USER);
+            }
+            running.set(false);
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        reader.get(30, TimeUnit.SECONDS);
+
+        assertThat(observed).isNotEmpty().allMatch(total -> total == 0.0 || total == 5.0);
+        assertThat(logService.getDailyLog(USER, START)).hasSize(5);
+    }
+
+    @Test
+    void weeklyReportsNeverSeeASingleDayChangeLandMidReport() throws Exception {
+        logService.logFood(USER, START, "apple", 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Integer> observed = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 1; t < THREADS; t++) {
+            readers.add(pool.submit(() -> {
+                while (running.get()) {
+                    Map<String, Integer> week = logService.getWeeklyCalories(USER, START);
+                    observed.add(week.values().stream().mapToInt(Integer::intValue).sum());
+                }
+            }));
+        }
+        // Moves the apple back and forth between the first two days of the week,
+        // one single-day change at a time; the week never holds two apples
+        Future<?> writer = pool.submit(() -> {
+            for (int i = 0; i < 10 * OPERATIONS; i++) {
+                LocalDate from = START.plusDays(i % 2);
+                LocalDate to = START.plusDays(1 - i % 2);
+                logService.removeLogEntry(USER, from, "apple", 1);
+                logService.logFood(USER, to, "apple", 1);
+            }
+            running.set(false);
+        });
+        writer.get(30, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(observed).isNotEmpty().allMatch(total -> total == 0 || total == 95);
+    }
+
+    @Test
+    void otherUsersNeverWaitForACompoundChange() throws Exception {
+        UserContext alice = UserContext.of("alice");
+        logService.logFood(USER, START, "apple", 1);
+        CountDownLatch inBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Parks alice's batch halfway, with her lock held exclusively
+        storage.addLogListener(new LogListener() {
+            @Override
+            public void onMutation(UserContext user, LogStore store, LogMutation mutation) {
+            }
+
+            @Override
+            public void onBatch(UserContext user, LogStore store, List<LogMutation> mutations) {
+                if (user.equals(alice)) {
+                    inBatch.countDown();
+                    awaitQuietly(release);
+                }
+            }
+        });
+        Future<?> batch = pool.submit(() -> logService.logFoods(alice,
+            List.of(new FoodLogRequest(START, "apple", 1), new FoodLogRequest(START, "bread", 1))));
+        assertThat(inBatch.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Everyone else reads and logs while alice's batch is parked
+        assertThat(pool.submit(() -> logService.getFoodFrequency(USER, START, START)).get(10, TimeUnit.SECONDS))
+            .containsEntry("apple", 1.0);
+        pool.submit(() -> logService.logFood(USER, START, "bread", 1)).get(10, TimeUnit.SECONDS);
+        assertThat(pool.submit(() -> logService.calculateCalories(USER, START, START)).get(10, TimeUnit.SECONDS))
+            .isEqualTo(175);
+        // Alice's own report waits for the whole batch
+        Future<Map<String, Double>> aliceReport = pool.submit(() -> logService.getFoodFrequency(alice, START, START));
+        Thread.sleep(100);
+        assertThat(aliceReport).isNotDone();
+
+        release.countDown();
+        batch.get(10, TimeUnit.SECONDS);
+        assertThat(aliceReport.get(10, TimeUnit.SECONDS)).containsOnlyKeys("apple", "bread");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit((Callable<Void>) () -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+}
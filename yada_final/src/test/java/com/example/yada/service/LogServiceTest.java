@@ -0,0 +1,163 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.FoodLogRequest;
+import com.example.yada.model.LogEntry;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+
+class LogServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final UserContext USER = UserContext.DEFAULT;
+    private static final UserContext ALICE = UserContext.of("alice");
+    private static final UserContext BOB = UserContext.of("bob");
+
+    @TempDir
+    Path dataDir;
+
+    private StorageProperties properties;
+    private JsonDataStorage storage;
+    private FoodService foodService;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        properties.getUsers().setMaxActive(2);
+        storage = new JsonDataStorage(properties);
+        foodService = new FoodService(storage);
+        logService = new LogService(storage, foodService);
+        foodService.addBasicFood("apple", List.of("fruit"), 95);
+        foodService.addBasicFood("bread", List.of("bakery"), 80);
+    }
+
+    @Test
+    void rangeTotalsFollowLogChangesAndUndo() {
+        logService.logFood(USER, DAY, "apple", 2);
+        logService.logFood(USER, DAY.plusDays(1), "bread", 1);
+        logService.logFood(USER, DAY.minusYears(1), "bread", 10);
+        assertThat(logService.calculateDailyCalories(USER, DAY)).isEqualTo(190);
+        assertThat(logService.calculateCalories(USER, DAY, DAY.plusDays(6))).isEqualTo(270);
+        assertThat(logService.calculateMonthlyCalories(USER, YearMonth.from(DAY))).isEqualTo(270);
+        assertThat(logService.calculateYearlyCalories(USER, Year.of(2025))).isEqualTo(800);
+
+        logService.clearDailyLog(USER, DAY);
+        assertThat(logService.calculateCalories(USER, DAY, DAY.plusDays(6))).isEqualTo(80);
+        logService.undo(USER);
+        assertThat(logService.getWeeklyCalories(USER, DAY)).containsEntry(DAY.toString(), 190);
+        assertThat(logService.calculateCalories(USER, LocalDate.MIN, LocalDate.MAX)).isEqualTo(1070);
+    }
+
+    @Test
+    void catalogChangesInvalidateTotals() {
+        foodService.addCompositeFood("toast", List.of("breakfast"), Map.of("bread", 1.0));
+        logService.logFood(USER, DAY, "toast", 2);
+        assertThat(logService.calculateDailyCalories(USER, DAY)).isEqualTo(160);
+
+        foodService.deleteCompositeFood("toast");
+        assertThatThrownBy(() -> logService.calculateDailyCalories(USER, DAY))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("toast");
+        assertThat(logService.calculateDailyCalories(USER, DAY.plusDays(1))).isZero();
+
+        foodService.addCompositeFood("toast", List.of("breakfast"), Map.of("bread", 1.5));
+        assertThat(logService.calculateDailyCalories(USER, DAY)).isEqualTo(240);
+    }
+
+    @Test
+    void usersKeepSeparateLogsAcrossEviction() {
+        logService.logFood(ALICE, DAY, "apple", 1);
+        logService.logFood(BOB, DAY, "bread", 3);
+        assertThat(logService.calculateDailyCalories(ALICE, DAY)).isEqualTo(95);
+        assertThat(logService.calculateDailyCalories(BOB, DAY)).isEqualTo(240);
+        assertThat(logService.getDailyLog(USER, DAY)).isEmpty();
+        // Three users with room for two: the least recently used shard was saved and dropped
+        assertThat(storage.getActiveUserCount()).isEqualTo(2);
+        assertThat(dataDir.resolve("users").resolve("alice").resolve("dailyLogs.json")).exists();
+
+        logService.logFood(ALICE, DAY, "bread", 1);
+        assertThat(logService.calculateDailyCalories(ALICE, DAY)).isEqualTo(175);
+        assertThat(logService.getFoodFrequency(BOB, DAY, DAY)).containsOnlyKeys("bread");
+
+        storage.saveAllData();
+        JsonDataStorage reopened = new JsonDataStorage(properties);
+        LogService reloaded = new LogService(reopened, new FoodService(reopened));
+        assertThat(reloaded.calculateDailyCalories(ALICE, DAY)).isEqualTo(175);
+        assertThat(reloaded.calculateDailyCalories(BOB, DAY)).isEqualTo(240);
+        reopened.saveAllData();
+    }
+
+    @Test
+    void undoHistoryIsBoundedRedoableAndSurvivesRestart() {
+        properties.getUndo().setMaxRecords(3);
+        storage.saveAllData();
+        storage = new JsonDataStorage(properties);
+        foodService = new FoodService(storage);
+        logService = new LogService(storage, foodService);
+
+        logService.logFood(USER, DAY, "apple", 1);
+        logService.logFood(USER, DAY, "bread", 1);
+        logService.logFood(USER, DAY, "bread", 2);
+        // Clearing three entries is one action of three records; the older actions fall off
+        logService.clearDailyLog(USER, DAY);
+        assertThat(logService.getUndoStackSize(USER)).isEqualTo(1);
+
+        assertThat(logService.undo(USER)).isTrue();
+        assertThat(logService.getDailyLog(USER, DAY)).extracting(LogEntry::getFoodId)
+            .containsExactly("apple", "bread", "bread");
+        assertThat(logService.undo(USER)).isFalse();
+
+        storage.saveAllData();
+        storage = new JsonDataStorage(properties);
+        logService = new LogService(storage, new FoodService(storage));
+        assertThat(logService.getRedoStackSize(USER)).isEqualTo(1);
+        assertThat(logService.redo(USER)).isTrue();
+        assertThat(logService.getDailyLog(USER, DAY)).isEmpty();
+        assertThat(logService.undo(USER)).isTrue();
+        assertThat(logService.calculateDailyCalories(USER, DAY)).isEqualTo(335);
+
+        // A new action drops what could have been redone
+        logService.logFood(USER, DAY, "apple", 1);
+        assertThat(logService.redo(USER)).isFalse();
+        storage.saveAllData();
+    }
+
+    @Test
+    void batchIsValidatedUpFrontAndUndoneAsOne() {
+        logService.logFood(USER, DAY, "apple", 1);
+        assertThatThrownBy(() -> logService.logFoods(USER, List.of(
+                new FoodLogRequest(DAY, "bread", 1),
+                new FoodLogRequest(DAY, "cake", 1))))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Entry 2: Food with ID 'cake' does not exist!");
+        assertThat(logService.getDailyLog(USER, DAY)).hasSize(1);
+
+        List<FoodLogRequest> week = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            week.add(new FoodLogRequest(DAY.minusDays(i % 7), i % 2 == 0 ? "apple" : "bread", 1));
+        }
+        assertThat(logService.logFoods(USER, week)).isEqualTo(70);
+        assertThat(logService.calculateCalories(USER, DAY.minusDays(6), DAY)).isEqualTo(95 + 35 * 95 + 35 * 80);
+        assertThat(logService.getUndoStackSize(USER)).isEqualTo(2);
+
+        logService.undo(USER);
+        assertThat(logService.getTotalLoggedDays(USER)).isEqualTo(1);
+        assertThat(logService.calculateCalories(USER, DAY.minusDays(6), DAY)).isEqualTo(95);
+    }
+}
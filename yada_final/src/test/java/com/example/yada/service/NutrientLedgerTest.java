@@ -0,0 +1,188 @@
+package com.example.yada.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.Nutrient;
+import com.example.yada.model.NutrientTotals;
+import com.example.yada.model.UserContext;
+import com.example.yada.repository.JsonDataStorage;
+
+class NutrientLedgerTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+    private static final UserContext USER = UserContext.DEFAULT;
+
+    @TempDir
+    Path dataDir;
+
+    private StorageProperties properties;
+    private FoodService foodService;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        foodService = new FoodService(storage);
+        logService = new LogService(storage, foodService);
+        foodService.addBasicFood("egg", List.of("protein"), 78,
+            Map.of(Nutrient.PROTEIN, 6.3, Nutrient.FAT, 5.3, Nutrient.SODIUM, 62.0));
+        foodService.addBasicFood("bread", List.of("bakery"), 80,
+            Map.of(Nutrient.PROTEIN, 2.7, Nutrient.CARBS, 15.0, Nutrient.FIBER, 0.8));
+        foodService.addBasicFood("water", List.of("drink"), 0);
+        foodService.addCompositeFood("toast", List.of("breakfast"), Map.of("egg", 1.0, "bread", 2.0));
+    }
+
+    @Test
+    void compositesResolveToTheSumOfTheirIngredients() {
+        NutrientTotals toast = foodService.calculateNutrients("toast", 0.5);
+        assertThat(toast.get(Nutrient.CALORIES)).isEqualTo(119.0);
+        assertThat(toast.get(Nutrient.PROTEIN)).isCloseTo(5.85, within(1e-9));
+        assertThat(toast.get(Nutrient.CARBS)).isCloseTo(15.0, within(1e-9));
+        assertThat(toast.get(Nutrient.SODIUM)).isCloseTo(31.0, within(1e-9));
+        assertThat(foodService.calculateNutrients("water", 3).asMap().values()).containsOnly(0.0);
+        assertThatThrownBy(() -> foodService.addBasicFood("salt", List.of(), 0, Map.of(Nutrient.SODIUM, -1.0)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Nutrient values cannot be negative!");
+    }
+
+    @Test
+    void dayAndRangeTotalsFollowTheLog() {
+        logService.logFood(USER, DAY, "toast", 1);
+        logService.logFood(USER, DAY, "egg", 1.0 / 3);
+        logService.logFood(USER, DAY.plusDays(3), "bread", 1);
+        logService.logFood(USER, DAY.minusYears(2), "egg", 2);
+
+        NutrientTotals day = logService.getDailyNutrients(USER, DAY);
+        // Calories keep the per-entry rounding: 238 + round(26.0)
+        assertThat(day.getCalories()).isEqualTo(264).isEqualTo(logService.calculateDailyCalories(USER, DAY));
+        assertThat(day.get(Nutrient.PROTEIN)).isCloseTo(11.7 + 2.1, within(1e-9));
+        assertThat(day.get(Nutrient.FIBER)).isCloseTo(1.6, within(1e-9));
+
+        NutrientTotals week = logService.calculateNutrients(USER, DAY, DAY.plusDays(6));
+        assertThat(week.getCalories()).isEqualTo(344).isEqualTo(logService.calculateCalories(USER, DAY, DAY.plusDays(6)));
+        assertThat(week.get(Nutrient.CARBS)).isCloseTo(45.0, within(1e-9));
+        assertThat(logService.calculateNutrients(USER, LocalDate.MIN, LocalDate.MAX).get(Nutrient.SODIUM))
+            .isCloseTo(62 + 62.0 / 3 + 124, within(1e-9));
+
+        logService.clearDailyLog(USER, DAY);
+        assertThat(logService.getDailyNutrients(USER, DAY).asMap().values()).containsOnly(0.0);
+        assertThat(logService.calculateNutrients(USER, DAY, DAY.plusDays(6)).get(Nutrient.CARBS))
+            .isCloseTo(15.0, within(1e-9));
+        logService.undo(USER);
+        // Range sums are updated by deltas, so grams may differ in the last bits; calories are whole
+        NutrientTotals restored = logService.calculateNutrients(USER, DAY, DAY.plusDays(6));
+        assertThat(restored.getCalories()).isEqualTo(344);
+        for (Nutrient nutrient : Nutrient.values()) {
+            assertThat(restored.get(nutrient)).isCloseTo(week.get(nutrient), within(1e-9));
+        }
+    }
+
+    @Test
+    void nutrientsSurviveARestartInBothFormats() throws Exception {
+        logService.logFood(USER, DAY, "toast", 2);
+        NutrientTotals before = logService.getDailyNutrients(USER, DAY);
+        new JsonDataStorage(properties).saveAllData();
+        assertThat(Files.readString(dataDir.resolve("basicFoods.json")))
+            .contains("\"nutrients\":{\"protein\":6.3,\"fat\":5.3,\"sodium\":62.0}");
+
+        for (String format : List.of("json", "binary")) {
+            Path dir = dataDir.resolve(format);
+            StorageProperties copy = new StorageProperties();
+            copy.setDataDir(dir.toString());
+            copy.setFormat(format);
+            JsonDataStorage storage = new JsonDataStorage(copy);
+            FoodService foods = new FoodService(storage);
+            foods.addBasicFood("egg", List.of("protein"), 78,
+                Map.of(Nutrient.PROTEIN, 6.3, Nutrient.FAT, 5.3, Nutrient.SODIUM, 62.0));
+            foods.addBasicFood("bread", List.of("bakery"), 80,
+                Map.of(Nutrient.PROTEIN, 2.7, Nutrient.CARBS, 15.0, Nutrient.FIBER, 0.8));
+            foods.addCompositeFood("toast", List.of("breakfast"), Map.of("egg", 1.0, "bread", 2.0));
+            new LogService(storage, foods).logFood(USER, DAY, "toast", 2);
+            storage.saveAllData();
+
+            JsonDataStorage reopened = new JsonDataStorage(copy);
+            assertThat(new LogService(reopened, new FoodService(reopened)).getDailyNutrients(USER, DAY))
+                .as(format).isEqualTo(before);
+            reopened.saveAllData();
+        }
+    }
+
+    @Test
+    void catalogChangesRefreshOnlyTheFoodsTheyTouch() {
+        long version = foodService.getCatalogVersion();
+        foodService.addBasicFood("apple", List.of("fruit"), 95);
+        assertThat(foodService.changedSince(version)).containsExactly("apple");
+        assertThat(foodService.changedSince(-1)).isNull();
+
+        logService.logFood(USER, DAY, "toast", 1);
+        logService.logFood(USER, DAY.plusDays(1), "bread", 1);
+        logService.logFood(USER, DAY.plusDays(2), "egg", 2);
+        assertThat(logService.calculateCalories(USER, DAY, DAY.plusDays(2))).isEqualTo(238 + 80 + 156);
+
+        // Redefining the egg reaches the toast through the resolver's reverse dependencies
+        version = foodService.getCatalogVersion();
+        foodService.deleteBasicFood("egg");
+        foodService.addBasicFood("egg", List.of("protein"), 90, Map.of(Nutrient.PROTEIN, 7.0));
+        assertThat(foodService.changedSince(version)).containsExactlyInAnyOrder("egg", "toast");
+        assertThat(logService.calculateDailyCalories(USER, DAY)).isEqualTo(250);
+        assertThat(logService.calculateDailyCalories(USER, DAY.plusDays(1))).isEqualTo(80);
+        assertThat(logService.getDailyNutrients(USER, DAY.plusDays(2)).get(Nutrient.PROTEIN))
+            .isCloseTo(14.0, within(1e-9));
+        assertThat(logService.calculateCalories(USER, DAY, DAY.plusDays(2))).isEqualTo(250 + 80 + 180);
+
+        foodService.deleteBasicFood("bread");
+        assertThatThrownBy(() -> logService.calculateDailyCalories(USER, DAY.plusDays(1)))
+            .hasMessage("Food with ID 'bread' not found!");
+        assertThat(logService.calculateDailyCalories(USER, DAY.plusDays(2))).isEqualTo(180);
+    }
+
+    @Test
+    void farApartDatesStaySparse() {
+        LocalDate ancient = LocalDate.of(1, 1, 1);
+        LocalDate distant = LocalDate.of(9999, 12, 31);
+        logService.logFood(USER, ancient, "egg", 1);
+        logService.logFood(USER, DAY, "bread", 1);
+        logService.logFood(USER, distant, "toast", 1);
+        logService.logFood(USER, LocalDate.MAX, "egg", 2);
+
+        assertThat(logService.calculateDailyCalories(USER, distant)).isEqualTo(238);
+        assertThat(logService.calculateDailyCalories(USER, LocalDate.MAX)).isEqualTo(156);
+        assertThat(logService.calculateCalories(USER, LocalDate.MIN, LocalDate.MAX)).isEqualTo(78 + 80 + 238 + 156);
+        assertThat(logService.calculateCalories(USER, DAY, distant)).isEqualTo(80 + 238);
+        assertThat(logService.calculateCalories(USER, DAY.plusDays(1), distant.minusDays(1))).isZero();
+        assertThat(logService.calculateNutrients(USER, ancient, DAY).get(Nutrient.PROTEIN))
+            .isCloseTo(6.3 + 2.7, within(1e-9));
+
+        logService.clearDailyLog(USER, distant);
+        assertThat(logService.calculateCalories(USER, DAY, LocalDate.MAX)).isEqualTo(80 + 156);
+    }
+
+    @Test
+    void unrolledSumsMatchAPlainLoop() {
+        double[] into = new double[NutrientVectors.WIDTH * 2];
+        double[] from = new double[NutrientVectors.WIDTH * 3];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = i * 0.25;
+        }
+        NutrientVectors.addScaled(into, NutrientVectors.WIDTH, from, 5, 2.0);
+        NutrientVectors.add(into, NutrientVectors.WIDTH, from, 1);
+        for (int i = 0; i < NutrientVectors.WIDTH; i++) {
+            assertThat(into[i]).isZero();
+            assertThat(into[NutrientVectors.WIDTH + i]).isEqualTo(from[5 + i] * 2.0 + from[1 + i]);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.yada.service.calorie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.model.UserContext;
+import com.example.yada.model.UserProfile;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.UserProfileService;
+
+class BatchCalorieEngineTest {
+    private static final String[] GENDERS = {"male", "female", "Male", "other"};
+    private static final String[] LEVELS = {"sedentary", "light", "MODERATE", "active", "unknown"};
+    private static final String[] METHODS = {"HarrisBenedict", "MifflinStJeor", "mifflin-st-jeor", null};
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void batchMatchesTheCalculatorsProfileByProfile() {
+        Random random = new Random(11);
+        List<UserProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            profiles.add(profile(GENDERS[random.nextInt(GENDERS.length)], 140 + random.nextInt(70),
+                40 + random.nextInt(90), 16 + random.nextInt(70), LEVELS[random.nextInt(LEVELS.length)],
+                METHODS[random.nextInt(METHODS.length)]));
+        }
+
+        double[] targets = new BatchCalorieEngine().calculate(ProfileBatch.of(profiles));
+
+        CalorieCalculator harrisBenedict = new HarrisBenedictCalculator();
+        CalorieCalculator mifflinStJeor = new MifflinStJeorCalculator();
+        for (int i = 0; i < profiles.size(); i++) {
+            UserProfile profile = profiles.get(i);
+            CalorieCalculator expected = CalorieMethod.of(profile.getCalorieMethod()) == CalorieMethod.MIFFLIN_ST_JEOR
+                ? mifflinStJeor : harrisBenedict;
+            assertThat(targets[i]).isEqualTo(expected.calculate(profile));
+        }
+    }
+
+    @Test
+    void formulasMatchPublishedCoefficients() {
+        UserProfile profile = profile("male", 180, 80, 30, "moderate", "HarrisBenedict");
+        assertThat(new HarrisBenedictCalculator().calculate(profile))
+            .isCloseTo((88.362 + 13.397 * 80 + 4.799 * 180 - 5.677 * 30) * 1.55, within(1e-9));
+        profile.setGender("female");
+        assertThat(new MifflinStJeorCalculator().calculate(profile))
+            .isCloseTo((10 * 80 + 6.25 * 180 - 5 * 30 - 161) * 1.55, within(1e-9));
+        assertThatThrownBy(() -> CalorieMethod.of("katch"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Unknown calorie method 'katch'!");
+    }
+
+    @Test
+    void profileServiceDispatchesOnCalorieMethod() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        UserProfileService service = new UserProfileService(new JsonDataStorage(properties), Map.of(
+            "harrisBenedict", new HarrisBenedictCalculator(), "mifflinStJeor", new MifflinStJeorCalculator()));
+        UserContext alice = UserContext.of("alice");
+        UserContext bob = UserContext.of("bob");
+        service.updateProfile(alice, "female", 165, 60, 35, "light");
+        service.updateProfile(bob, "male", 180, 80, 30, "active");
+        service.setCalorieMethod(bob, "mifflin-st-jeor");
+
+        UserProfile bobProfile = service.getProfile(bob);
+        assertThat(bobProfile.getCalorieMethod()).isEqualTo("MifflinStJeor");
+        assertThat(service.calculateTargetCalories(bob)).isEqualTo(new MifflinStJeorCalculator().calculate(bobProfile));
+        assertThat(service.calculateTargetCalories(List.of(alice, bob, UserContext.of("carol"))))
+            .containsOnlyKeys(alice, bob)
+            .containsEntry(alice, service.calculateTargetCalories(alice))
+            .containsEntry(bob, service.calculateTargetCalories(bob));
+    }
+
+    @Test
+    void batchTargetsReadProfilesWithoutLoadingShards() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        properties.getUsers().setMaxActive(2);
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        UserProfileService service = new UserProfileService(storage, Map.of(
+            "harrisBenedict", new HarrisBenedictCalculator(), "mifflinStJeor", new MifflinStJeorCalculator()));
+        List<UserContext> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UserContext user = UserContext.of("user" + i);
+            service.updateProfile(user, i % 2 == 0 ? "female" : "male", 160 + i, 60 + i, 30 + i, "moderate");
+            users.add(user);
+        }
+        storage.saveAllData();
+        UserContext active = UserContext.of("active");
+        service.updateProfile(active, "male", 175, 70, 40, "light");
+        List<UserContext> evicted = new ArrayList<>();
+        storage.addEvictionListener(evicted::add);
+
+        Map<UserContext, Double> targets = service.calculateTargetCalories(users);
+        assertThat(evicted).isEmpty();
+        for (UserContext user : users) {
+            assertThat(targets.get(user)).isEqualTo(service.calculateTargetCalories(user));
+        }
+        storage.saveAllData();
+    }
+
+    @Test
+    void batchSkipsProfilesItCannotParse() throws Exception {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        UserProfileService service = new UserProfileService(new JsonDataStorage(properties), Map.of(
+            "harrisBenedict", new HarrisBenedictCalculator(), "mifflinStJeor", new MifflinStJeorCalculator()));
+        UserContext alice = UserContext.of("alice");
+        UserContext bob = UserContext.of("bob");
+        service.updateProfile(alice, "female", 165, 60, 35, "light");
+        // Edited by hand, never through the service
+        Path bobFile = dataDir.resolve("users/bob/userProfile.json");
+        Files.createDirectories(bobFile.getParent());
+        Files.writeString(bobFile, "{\"gender\":\"male\",\"height\":180,\"age\":30,\"weight\":80,"
+            + "\"activityLevel\":\"active\",\"calorieMethod\":\"katch\"}");
+
+        assertThat(service.calculateTargetCalories(List.of(bob, alice)))
+            .containsOnlyKeys(alice)
+            .containsEntry(alice, service.calculateTargetCalories(alice));
+    }
+
+    private static UserProfile profile(String gender, double height, double weight, int age, String level,
+                                       String method) {
+        UserProfile profile = new UserProfile();
+        profile.setGender(gender);
+        profile.setHeight(height);
+        profile.setWeight(weight);
+        profile.setAge(age);
+        profile.setActivityLevel(level);
+        profile.setCalorieMethod(method);
+        return profile;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.yada.ui;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.FoodService;
+
+class HeadlessCliTest {
+    @TempDir
+    Path dataDir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void setUp() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        new FoodService(storage).addBasicFood("apple", List.of("fruit"), 95);
+        storage.saveAllData();
+    }
+
+    @Test
+    void logsAndReportsAcrossInvocations() {
+        assertThat(run("log", "2026-10-18", "apple", "2")).isZero();
+        assertThat(run("--user=alice", "log", "2026-10-18", "apple", "1")).isZero();
+        out.reset();
+
+        assertThat(run("total", "2026-10-18")).isZero();
+        assertThat(run("--user=alice", "range", "2026-10-01", "2026-10-31")).isZero();
+        assertThat(run("day", "2026-10-18")).isZero();
+        assertThat(out.toString().lines()).containsExactly("190", "95", "apple 2.0");
+    }
+
+    @Test
+    void rejectsBadInputWithoutChangingTheLog() {
+        assertThat(run("log", "2026-10-18", "pear", "1")).isEqualTo(1);
+        assertThat(err.toString()).contains("Food with ID 'pear' does not exist!");
+        assertThat(run("total", "yesterday")).isEqualTo(1);
+        assertThat(run("eat")).isEqualTo(2);
+        assertThat(run("target")).isEqualTo(1);
+        assertThat(err.toString()).contains("Set a user profile first!");
+
+        out.reset();
+        assertThat(run("total", "2026-10-18")).isZero();
+        assertThat(out.toString().trim()).isEqualTo("0");
+    }
+
+    private int run(String... command) {
+        String[] args = new String[command.length + 2];
+        args[0] = "--headless";
+        args[1] = "--yada.storage.data-dir=" + dataDir;
+        System.arraycopy(command, 0, args, 2, command.length);
+        return new HeadlessCli(new PrintStream(out, true), new PrintStream(err, true)).run(args);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.yada.ui;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.yada.config.StorageProperties;
+import com.example.yada.repository.JsonDataStorage;
+import com.example.yada.service.FoodService;
+
+// Time to first result of a one-shot command in a fresh JVM, headless against a
+// full Spring boot of the same app. Run with:
+//   mvn test -Pbenchmark -Dtest=HeadlessStartupBenchmarkTest
+// Targets: -Dbench.headlessTargetMs=... (default 1500) and the headless run must
+// take at most half the Spring boot. -Dbench.cds=true adds a run from an AppCDS
+// archive dumped by a first invocation.
+@Tag("benchmark")
+class HeadlessStartupBenchmarkTest {
+    private static final int RUNS = Integer.getInteger("bench.runs", 5);
+    private static final long HEADLESS_TARGET_MS = Long.getLong("bench.headlessTargetMs", 1500);
+
+    // Output of every launched JVM, for when one fails
+    private static final Path LOG = Paths.get("target", "startup-benchmark.log");
+
+    @TempDir
+    static Path dataDir;
+
+    @BeforeAll
+    static void seed() {
+        StorageProperties properties = new StorageProperties();
+        properties.setDataDir(dataDir.toString());
+        JsonDataStorage storage = new JsonDataStorage(properties);
+        new FoodService(storage).addBasicFood("apple", List.of("fruit"), 95);
+        storage.saveAllData();
+    }
+
+    @Test
+    void headlessAnswersFasterThanAFullBoot() throws Exception {
+        // Spring Shell would take program arguments as a command, so settings go in as -D
+        long spring = best(List.of("-Dspring.shell.interactive.enabled=false",
+            "-Dspring.shell.noninteractive.enabled=false", "-Dyada.console.enabled=false"));
+        long headless = best(List.of(), "--headless", "total", "2026-10-18");
+        System.out.printf("time to first result: spring %d ms, headless %d ms%n", spring, headless);
+
+        if (Boolean.getBoolean("bench.cds")) {
+            // AppCDS only archives classes from jars, so the app classes are jarred first
+            String classPath = jarredClassPath();
+            Path archive = Paths.get("target", "yada-headless.jsa").toAbsolutePath();
+            run(classPath, List.of("-XX:ArchiveClassesAtExit=" + archive), "--headless", "total", "2026-10-18");
+            long cds = Long.MAX_VALUE;
+            for (int i = 0; i < RUNS; i++) {
+                cds = Math.min(cds, run(classPath, List.of("-XX:SharedArchiveFile=" + archive),
+                    "--headless", "total", "2026-10-18"));
+            }
+            System.out.printf("time to first result: headless with AppCDS %d ms%n", cds);
+        }
+
+        assertThat(headless).isLessThan(HEADLESS_TARGET_MS).isLessThan(spring / 2);
+    }
+
+    private static long best(List<String> jvmArgs, String... args) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            best = Math.min(best, run(jvmArgs, args));
+        }
+        return best;
+    }
+
+    private static long run(List<String> jvmArgs, String... args) throws IOException, InterruptedException {
+        return run(System.getProperty("java.class.path"), jvmArgs, args);
+    }
+
+    // Wall time from launch to exit of the app in a fresh JVM
+    private static long run(String classPath, List<String> jvmArgs, String... args)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-Dyada.storage.data-dir=" + dataDir);
+        command.add("-cp");
+        command.add(classPath);
+        command.add("com.example.yada.YadaApplication");
+        command.addAll(Arrays.asList(args));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(LOG.toFile())).start();
+        assertThat(process.waitFor(60, TimeUnit.SECONDS)).isTrue();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        assertThat(process.exitValue()).isZero();
+        return elapsedMs;
+    }
+
+    // The dependency jars plus target/classes packed into one jar
+    private static String jarredClassPath() throws IOException {
+        Path classes = Paths.get("target", "classes").toAbsolutePath();
+        Path jar = Paths.get("target", "yada-classes.jar").toAbsolutePath();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        List<String> entries = new ArrayList<>();
+        entries.add(jar.toString());
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (entry.endsWith(".jar")) {
+                entries.add(entry);
+            }
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.yada.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.yada.YadaApplication;
+
+// Run with: mvn test -Pbenchmark -Dtest=ApiLoadBenchmarkTest
+// Load can be changed with -Dbench.threads=... and -Dbench.seconds=...
+@Tag("benchmark")
+@SpringBootTest(classes = YadaApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.shell.interactive.enabled=false",
+        "yada.storage.data-dir=target/test-data/load/"
+    })
+@ActiveProfiles("server")
+class ApiLoadBenchmarkTest {
+    private static final int THREADS = Integer.getInteger("bench.threads", 32);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 20);
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void mixedLoad() throws Exception {
+        LoadTestHarness harness = new LoadTestHarness("http://localhost:" + port, THREADS, Duration.ofSeconds(2));
+        harness.seed();
+        // Warm up the JIT and connection pool, then measure
+        harness.run();
+        LoadTestHarness.Result result = new LoadTestHarness("http://localhost:" + port, THREADS,
+            Duration.ofSeconds(SECONDS)).run();
+
+        System.out.println("load: " + THREADS + " clients, " + result);
+        assertThat(result.errors()).isZero();
+        assertThat(result.requests()).isPositive();
+    }
+}
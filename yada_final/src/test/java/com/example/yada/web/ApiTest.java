@@ -0,0 +1,90 @@
+package com.example.yada.web;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.yada.YadaApplication;
+
+@SpringBootTest(classes = YadaApplication.class, properties = {
+    "spring.shell.interactive.enabled=false",
+    "yada.storage.data-dir=target/test-data/api/"
+})
+@ActiveProfiles("server")
+@AutoConfigureMockMvc
+class ApiTest {
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    void catalogReadsRevalidateWithETag() throws Exception {
+        String etag = mvc.perform(get("/api/foods/basic"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/api/foods/basic").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        mvc.perform(post("/api/foods/basic").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":\"etag-test-" + System.nanoTime() + "\",\"keywords\":[\"x\"],\"caloriesPerServing\":10}"))
+            .andExpect(status().isCreated());
+        mvc.perform(get("/api/foods/basic").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void logsAreScopedToTheUserInThePath() throws Exception {
+        mvc.perform(post("/api/foods/basic").contentType(MediaType.APPLICATION_JSON)
+            .content("{\"id\":\"api-apple\",\"keywords\":[\"fruit\"],\"caloriesPerServing\":95}"));
+        mvc.perform(post("/api/users/carol/logs/2026-10-18").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"foodId\":\"api-apple\",\"servings\":2}"))
+            .andExpect(status().isCreated());
+
+        mvc.perform(get("/api/users/carol/calories/2026-10-18"))
+            .andExpect(jsonPath("$.calories").value(190));
+        mvc.perform(get("/api/users/dave/logs/2026-10-18"))
+            .andExpect(jsonPath("$.length()").value(0));
+        mvc.perform(post("/api/users/carol/logs/2026-10-18").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"foodId\":\"nope\",\"servings\":1}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Food with ID 'nope' does not exist!"));
+        mvc.perform(post("/api/users/carol/undo"))
+            .andExpect(jsonPath("$.undone").value(true));
+        mvc.perform(get("/api/users/carol/target-calories"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void rejectedProfileUpdateChangesNothing() throws Exception {
+        String user = "/api/users/erin-" + System.nanoTime() + "/profile";
+        mvc.perform(put(user).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"gender\":\"female\",\"height\":165,\"weight\":60,\"age\":35,"
+                    + "\"activityLevel\":\"light\",\"calorieMethod\":\"mifflin-st-jeor\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.calorieMethod").value("MifflinStJeor"));
+
+        mvc.perform(put(user).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"gender\":\"male\",\"height\":180,\"weight\":90,\"age\":50,"
+                    + "\"activityLevel\":\"active\",\"calorieMethod\":\"katch\"}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unknown calorie method 'katch'!"));
+        mvc.perform(get(user))
+            .andExpect(jsonPath("$.gender").value("female"))
+            .andExpect(jsonPath("$.weight").value(60.0))
+            .andExpect(jsonPath("$.age").value(35))
+            .andExpect(jsonPath("$.activityLevel").value("light"))
+            .andExpect(jsonPath("$.calorieMethod").value("MifflinStJeor"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.yada.web;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Closed-loop HTTP load: each worker sends its next request as soon as the last
+// one returns, mixing catalog reads (revalidated by ETag), calorie reports and
+// log writes spread over a handful of users. Reports p50/p99 latency and req/s.
+// Against a running server: LoadTestHarness <baseUrl> [threads] [seconds]
+public class LoadTestHarness {
+    private final String baseUrl;
+    private final int threads;
+    private final Duration duration;
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(5))
+        .build();
+
+    public record Result(long requests, long errors, double seconds, long p50Micros, long p99Micros) {
+        public double requestsPerSecond() {
+            return requests / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d errors) in %.1f s: %.0f req/s, p50 %.2f ms, p99 %.2f ms",
+                requests, errors, seconds, requestsPerSecond(), p50Micros / 1000.0, p99Micros / 1000.0);
+        }
+    }
+
+    public LoadTestHarness(String baseUrl, int threads, Duration duration) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.threads = threads;
+        this.duration = duration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadTestHarness <baseUrl> [threads] [seconds]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        LoadTestHarness harness = new LoadTestHarness(args[0], threads, Duration.ofSeconds(seconds));
+        harness.seed();
+        System.out.println(harness.run());
+    }
+
+    // A food for the write and report requests to use
+    public void seed() throws Exception {
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/foods/basic"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"id\":\"load-apple\",\"keywords\":[\"fruit\"],\"caloriesPerServing\":95}"))
+            .build());
+    }
+
+    public Result run() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        List<Future<long[]>> workers = new ArrayList<>();
+        long[] errors = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers.add(pool.submit(() -> work(worker, deadline, errors)));
+        }
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<long[]> future : workers) {
+            latencies.add(future.get());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            return new Result(0, Arrays.stream(errors).sum(), seconds, 0, 0);
+        }
+        return new Result(all.length, Arrays.stream(errors).sum(), seconds,
+            all[percentileIndex(all.length, 0.50)] / 1000, all[percentileIndex(all.length, 0.99)] / 1000);
+    }
+
+    private long[] work(int worker, long deadline, long[] errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        String etag = null;
+        String user = "/api/users/load" + worker % 8;
+        LocalDate day = LocalDate.of(2026, 1, 1).plusDays(worker);
+        for (long i = 0; System.nanoTime() < deadline; i++) {
+            HttpRequest request = switch ((int) (i % 4)) {
+                case 0 -> {
+                    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/api/foods/basic"));
+                    yield (etag != null ? builder.header("If-None-Match", etag) : builder).build();
+                }
+                case 1 -> HttpRequest.newBuilder(URI.create(baseUrl + user + "/logs/" + day))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"foodId\":\"load-apple\",\"servings\":1}"))
+                    .build();
+                case 2 -> HttpRequest.newBuilder(URI.create(baseUrl + user + "/calories/" + day)).build();
+                default -> HttpRequest.newBuilder(URI.create(
+                    baseUrl + user + "/calories?from=" + day.minusDays(30) + "&to=" + day)).build();
+            };
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = send(request);
+                if (response.statusCode() >= 400) {
+                    errors[worker]++;
+                }
+                etag = response.headers().firstValue("ETag").orElse(etag);
+            } catch (Exception e) {
+                errors[worker]++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+    }
+}